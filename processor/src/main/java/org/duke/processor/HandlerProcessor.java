@@ -0,0 +1,264 @@
+package org.duke.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates {@code org.duke.cmd.HandlerRegistry}, holding what the annotations on each command handler say:
+ * its bindings, its arguments, and its help lines, already put together.
+ *
+ * This saves reading the annotations back by reflection when Duke starts and whenever help is shown.
+ * Annotations are read by name, so that this does not depend on the classes it is run over.
+ */
+@SupportedAnnotationTypes({
+        HandlerProcessor.BINDING, HandlerProcessor.BINDINGS,
+        HandlerProcessor.DESCRIPTION,
+        HandlerProcessor.NAMED_ARGUMENT, HandlerProcessor.NAMED_ARGUMENTS
+})
+public class HandlerProcessor extends AbstractProcessor {
+    static final String HANDLER = "org.duke.cmd.Handler";
+    static final String BINDING = HANDLER + ".Binding";
+    static final String BINDINGS = HANDLER + ".Bindings";
+    static final String DESCRIPTION = HANDLER + ".Description";
+    static final String NAMED_ARGUMENT = HANDLER + ".NamedArgument";
+    static final String NAMED_ARGUMENTS = HANDLER + ".NamedArguments";
+    static final String REGISTRY_PACKAGE = "org.duke.cmd";
+    static final String REGISTRY_NAME = "HandlerRegistry";
+
+    //Handlers found so far, in case they are spread over several rounds.
+    private final Set<TypeElement> handlers = new LinkedHashSet<>();
+    private boolean written = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        boolean onlyHandlerAnnotations = true;
+        for (TypeElement annotation : annotations) {
+            if (!annotation.getQualifiedName().toString().startsWith(HANDLER + ".")) {
+                onlyHandlerAnnotations = false;
+                continue;
+            }
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (this.isHandler(element)) {
+                    this.handlers.add((TypeElement) element);
+                }
+            }
+        }
+        //Handlers are written out once all have been seen, but before the last round,
+        //so that the registry is still compiled along with them.
+        if (!this.written && !this.handlers.isEmpty() && !roundEnv.processingOver()) {
+            this.written = true;
+            this.writeRegistry();
+        }
+        //Handler annotations are only for this processor, but any others are left to other processors.
+        return onlyHandlerAnnotations;
+    }
+
+    /**
+     * Checks that an annotated element is a handler which the registry can construct lines for,
+     * reporting an error on it if not.
+     */
+    private boolean isHandler(Element element) {
+        TypeElement handler = this.processingEnv.getElementUtils().getTypeElement(HANDLER);
+        if (element.getKind() != ElementKind.CLASS
+                || !this.processingEnv.getTypeUtils().isSubtype(element.asType(), handler.asType())) {
+            this.error(element, "Handler annotations can only be put on subclasses of " + HANDLER);
+            return false;
+        }
+        if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+            this.error(element, "Handlers must be public, to be registered");
+            return false;
+        }
+        if (this.annotations(element, BINDING, BINDINGS).isEmpty()) {
+            this.error(element, "Handlers need at least one @Handler.Binding");
+            return false;
+        }
+        if (this.annotations(element, DESCRIPTION, null).isEmpty()) {
+            this.error(element, "Handlers need a @Handler.Description");
+            return false;
+        }
+        return true;
+    }
+
+    private void error(Element element, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Finds the annotations of a repeatable type on an element, whether repeated or not.
+     *
+     * @param single    Name of the annotation type
+     * @param container Name of the type holding it when repeated, or null if it is not repeatable
+     * @return Annotations, in the order given
+     */
+    private List<AnnotationMirror> annotations(Element element, String single, String container) {
+        List<AnnotationMirror> found = new ArrayList<>();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String name = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (name.equals(single)) {
+                found.add(mirror);
+            } else if (name.equals(container)) {
+                @SuppressWarnings("unchecked")
+                List<? extends AnnotationValue> repeated = (List<? extends AnnotationValue>) this.value(mirror, "value");
+                for (AnnotationValue value : repeated) {
+                    found.add((AnnotationMirror) value.getValue());
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Reads an annotation element, or its default if it was left out.
+     */
+    private Object value(AnnotationMirror mirror, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                this.processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalArgumentException("No element " + name + " in " + mirror);
+    }
+
+    private void writeRegistry() {
+        List<TypeElement> sorted = new ArrayList<>(this.handlers);
+        sorted.sort(Comparator.comparing(type -> type.getQualifiedName().toString()));
+
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(REGISTRY_PACKAGE).append(";\n\n")
+                .append("import java.util.Collections;\n")
+                .append("import java.util.HashMap;\n")
+                .append("import java.util.Map;\n\n")
+                .append("/**\n")
+                .append(" * What each command handler's annotations say, as read at build time.\n")
+                .append(" * Generated by {@code ").append(HandlerProcessor.class.getName()).append("}.\n")
+                .append(" */\n")
+                .append("final class ").append(REGISTRY_NAME).append(" {\n")
+                .append("    private static final Map<Class<?>, HandlerInfo> handlers = new HashMap<>();\n\n")
+                .append("    static {\n");
+        for (TypeElement type : sorted) {
+            this.writeEntry(out, type);
+        }
+        out.append("    }\n\n")
+                .append("    private ").append(REGISTRY_NAME).append("() {\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Returns what is known about a handler class.\n")
+                .append("     *\n")
+                .append("     * @param type Handler class\n")
+                .append("     * @return Handler details, or null if the class was not compiled along with the registry.\n")
+                .append("     */\n")
+                .append("    static HandlerInfo get(Class<?> type) {\n")
+                .append("        return handlers.get(type);\n")
+                .append("    }\n\n")
+                .append("    static Map<Class<?>, HandlerInfo> getAll() {\n")
+                .append("        return Collections.unmodifiableMap(handlers);\n")
+                .append("    }\n")
+                .append("}\n");
+
+        try (Writer writer = this.processingEnv.getFiler()
+                .createSourceFile(REGISTRY_PACKAGE + "." + REGISTRY_NAME, sorted.toArray(new Element[0]))
+                .openWriter()) {
+            writer.write(out.toString());
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write " + REGISTRY_NAME + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the statement registering one handler,
+     * with its help lines put together as {@code Handler} used to at run time.
+     */
+    private void writeEntry(StringBuilder out, TypeElement type) {
+        List<String> bindings = new ArrayList<>();
+        for (AnnotationMirror bind : this.annotations(type, BINDING, BINDINGS)) {
+            bindings.add((String) this.value(bind, "value"));
+        }
+        AnnotationMirror description = this.annotations(type, DESCRIPTION, null).get(0);
+        String text = (String) this.value(description, "value");
+        String argument = (String) this.value(description, "argument");
+        boolean optional = (Boolean) this.value(description, "optional");
+        List<String[]> namedArguments = new ArrayList<>();
+        for (AnnotationMirror arg : this.annotations(type, NAMED_ARGUMENT, NAMED_ARGUMENTS)) {
+            namedArguments.add(new String[]{(String) this.value(arg, "value"), (String) this.value(arg, "description")});
+        }
+
+        StringBuilder descriptionLine = new StringBuilder();
+        for (String bind : bindings) {
+            descriptionLine.append(bind).append(' ');
+        }
+        descriptionLine.append("- ").append(text);
+
+        StringBuilder syntaxLine = new StringBuilder(bindings.get(0));
+        if (!argument.isEmpty()) {
+            syntaxLine.append(" <").append(argument).append('>');
+        }
+        for (String[] arg : namedArguments) {
+            syntaxLine.append(" [ /").append(arg[0]).append(" (").append(arg[1]).append(") ]");
+        }
+
+        TypeMirror erased = this.processingEnv.getTypeUtils().erasure(type.asType());
+        out.append("        handlers.put(").append(erased).append(".class, new HandlerInfo(\n")
+                .append("                new String[]{");
+        for (int i = 0; i < bindings.size(); i++) {
+            out.append(i == 0 ? "" : ", ").append(literal(bindings.get(i)));
+        }
+        out.append("},\n")
+                .append("                ").append(literal(text)).append(", ")
+                .append(literal(argument)).append(", ").append(optional).append(",\n")
+                .append("                new HandlerInfo.Argument[]{");
+        for (int i = 0; i < namedArguments.size(); i++) {
+            String[] arg = namedArguments.get(i);
+            out.append(i == 0 ? "\n" : ",\n")
+                    .append("                        new HandlerInfo.Argument(")
+                    .append(literal(arg[0])).append(", ").append(literal(arg[1])).append(')');
+        }
+        out.append("},\n")
+                .append("                ").append(literal(descriptionLine.toString())).append(",\n")
+                .append("                ").append(literal(syntaxLine.toString())).append("));\n");
+    }
+
+    /**
+     * Quotes a string as a Java literal, escaping anything outside printable ASCII.
+     */
+    private static String literal(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+}
@@ -0,0 +1,51 @@
+package org.duke.bench;
+
+import org.duke.cmd.Command;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting user input into a command, its arguments, and its switches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandBenchmark {
+    @Param({"0", "4", "64", "1024"})
+    public int switchCount;
+
+    @Param({"8", "256"})
+    public int wordsPerArgument;
+
+    private String input;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("  deadline");
+        appendWords(sb, "task", this.wordsPerArgument);
+        for (int i = 0; i < this.switchCount; i++) {
+            sb.append(" \t/switch").append(i);
+            appendWords(sb, "arg" + i, this.wordsPerArgument);
+        }
+        this.input = sb.append("  ").toString();
+    }
+
+    private static void appendWords(StringBuilder sb, String word, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(' ').append(word).append('-').append(i);
+        }
+    }
+
+    @Benchmark
+    public Command parse() {
+        return Command.parse(this.input);
+    }
+}
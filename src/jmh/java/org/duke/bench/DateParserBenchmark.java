@@ -0,0 +1,46 @@
+package org.duke.bench;
+
+import org.duke.util.DateParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the kinds of date strings users give deadlines and events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DateParserBenchmark {
+    @Param({
+            //Exact dates, with and without times
+            "1 May 2019 12AM",
+            "23 Sep 2019 2359h",
+            "Dec 25 2019 6:30 PM",
+            "2019-10-01 14:00",
+            "2019-10-01",
+            //Month and day, resolved to the next occurrence
+            "15 Nov 9pm",
+            "Feb 29 8.15am",
+            "4 Jul",
+            //Weekdays, resolved to the next occurrence
+            "mon 10am",
+            "Friday 1800h",
+            "sun",
+            //Unparseable
+            "next week"
+    })
+    public String input;
+
+    @Benchmark
+    public LocalDateTime parse() {
+        return DateParser.parse(this.input);
+    }
+}
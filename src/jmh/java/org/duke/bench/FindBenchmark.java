@@ -0,0 +1,59 @@
+package org.duke.bench;
+
+import org.duke.TaskStorage;
+import org.duke.util.CounterDecorator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searching a task list, through its index as the {@code find} command does,
+ * and by scanning every description as it used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FindBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+
+    //A common word, a rare word, and no match at all.
+    @Param({"book", "dentist appointment", "xylophone"})
+    public String query;
+
+    private TaskStorage storage;
+
+    @Setup
+    public void setup() {
+        this.storage = new TaskStorage(TaskFixtures.tasks(this.taskCount));
+        //The first search builds the index, which should not be measured.
+        this.storage.find(this.query);
+    }
+
+    @Benchmark
+    public void find(Blackhole blackhole) {
+        this.storage.find(this.query)
+                .mapToObj(index -> new CounterDecorator.IntPair<>(index + 1, this.storage.get(index)))
+                .map(Object::toString)
+                .forEachOrdered(blackhole::consume);
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        String target = this.query.toLowerCase();
+        this.storage.stream()
+                .map(new CounterDecorator<>(1))
+                .filter(taskpair ->
+                        taskpair.value.getDescription().toLowerCase().contains(target))
+                .map(Object::toString)
+                .forEachOrdered(blackhole::consume);
+    }
+}
@@ -0,0 +1,77 @@
+package org.duke.bench;
+
+import org.duke.json.JsonParser;
+import org.duke.json.JsonWriter;
+import org.duke.json.ValueHandler;
+import org.duke.task.Task;
+import org.duke.task.TaskType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing whole task lists as JSON, as loading and saving does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+
+    private byte[] json;
+    private ByteBuffer mapped;
+    private List<Task> tasks;
+
+    @Setup
+    public void setup() {
+        String text = TaskFixtures.json(this.taskCount);
+        this.json = text.getBytes(StandardCharsets.UTF_8);
+        //Direct, like a memory-mapped snapshot.
+        this.mapped = ByteBuffer.allocateDirect(this.json.length);
+        this.mapped.put(this.json).flip();
+        this.tasks = TaskFixtures.tasks(this.taskCount);
+    }
+
+    @Benchmark
+    public ArrayList<Task> parseReader() {
+        InputStreamReader reader = new InputStreamReader(
+                new ByteArrayInputStream(this.json), StandardCharsets.UTF_8);
+        return JsonParser.parse(reader, ValueHandler.listOf(new TaskType.Builder()));
+    }
+
+    @Benchmark
+    public ArrayList<Task> parseBuffer() {
+        return JsonParser.parse(this.mapped.duplicate(), ValueHandler.listOf(new TaskType.Builder()));
+    }
+
+    @Benchmark
+    public void writeValue() throws Exception {
+        try (JsonWriter writer = new JsonWriter(Writer.nullWriter())) {
+            writer.writeValue(this.tasks);
+        }
+    }
+
+    @Benchmark
+    public void writeBytes() throws Exception {
+        try (JsonWriter writer = new JsonWriter(Channels.newChannel(OutputStream.nullOutputStream()), true)) {
+            writer.writeValue(this.tasks);
+        }
+    }
+}
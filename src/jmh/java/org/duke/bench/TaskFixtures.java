@@ -0,0 +1,91 @@
+package org.duke.bench;
+
+import org.duke.json.JsonParser;
+import org.duke.json.JsonWriter;
+import org.duke.json.ValueHandler;
+import org.duke.task.Task;
+import org.duke.task.TaskType;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Generates reproducible task lists for benchmarks.
+ */
+final class TaskFixtures {
+    private static final String[] words = {
+            "read", "book", "return", "library", "homework", "submit", "report", "project",
+            "meeting", "team", "call", "mom", "buy", "groceries", "milk", "bread",
+            "pay", "bills", "rent", "clean", "room", "laundry", "gym", "run",
+            "dentist", "appointment", "birthday", "party", "lecture", "tutorial", "quiz", "exam"
+    };
+    private static final LocalDateTime epoch = LocalDateTime.of(2019, 8, 1, 0, 0);
+
+    private TaskFixtures() {
+    }
+
+    /**
+     * Generates tasks as JSON, in the same form {@link org.duke.TaskStorage} saves them.
+     * The same count always produces the same tasks.
+     *
+     * @param count Number of tasks
+     * @return JSON array of tasks
+     */
+    static String json(int count) {
+        Random random = new Random(count);
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.writeValue(ctx -> ctx.writeArray(array -> {
+                for (int i = 0; i < count; i++) {
+                    array.writeElem(elem -> elem.writeObject(obj -> writeTask(obj, random)));
+                }
+            }));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Generates tasks, as {@link #json(int)} would describe them.
+     *
+     * @param count Number of tasks
+     * @return List of tasks
+     */
+    static ArrayList<Task> tasks(int count) {
+        return JsonParser.parse(new StringReader(json(count)),
+                ValueHandler.listOf(new TaskType.Builder()));
+    }
+
+    private static void writeTask(JsonWriter.ObjectContext obj, Random random) {
+        TaskType type = TaskType.values()[random.nextInt(TaskType.values().length)];
+        obj.writeField("type", type);
+        obj.writeField("description", description(random));
+        obj.writeField("completed", random.nextInt(4) == 0);
+        String time = DateTimeFormatter.ISO_LOCAL_DATE_TIME
+                .format(epoch.plusMinutes(random.nextInt(60 * 24 * 365)));
+        switch (type) {
+        case Deadline:
+            obj.writeField("deadline", time);
+            break;
+        case Event:
+            obj.writeField("timing", time);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static String description(Random random) {
+        StringBuilder sb = new StringBuilder(words[random.nextInt(words.length)]);
+        int length = 2 + random.nextInt(5);
+        for (int i = 1; i < length; i++) {
+            sb.append(' ').append(words[random.nextInt(words.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package org.duke;
+
+import org.duke.metrics.CommandMetrics;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a flush on a background thread a short while after changes are made,
+ * so that the thread making the changes never waits on the disk.
+ *
+ * Changes made while a flush is waiting to run are all written out by it.
+ * A flush runs at most one interval after a change, or straight away
+ * once enough changes are waiting.
+ * If a flush fails, no further flushes are run, and the failure is rethrown by {@link #checkFailure()},
+ * which the changing thread calls before each change.
+ */
+class BackgroundSaver {
+    private final ScheduledThreadPoolExecutor executor;
+    private final Flush flush;
+    private final long intervalMillis;
+    private final int threshold;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean urgent = new AtomicBoolean();
+    private volatile Exception failure;
+
+    /**
+     * Constructs a saver, starting its thread.
+     *
+     * @param flush          Writes out all changes made so far
+     * @param intervalMillis Longest time a change waits to be flushed
+     * @param threshold      Number of waiting changes which triggers an immediate flush
+     */
+    BackgroundSaver(Flush flush, long intervalMillis, int threshold) {
+        this.flush = flush;
+        this.intervalMillis = intervalMillis;
+        this.threshold = threshold;
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "duke-saver");
+            t.setDaemon(true);
+            return t;
+        });
+        //Closing flushes straight away, so a flush still waiting on its interval is not needed.
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Notes that a change was made, scheduling a flush if none is waiting already.
+     *
+     * @param pending Number of changes waiting to be flushed
+     */
+    void changed(int pending) {
+        if (pending >= this.threshold) {
+            if (!this.urgent.getAndSet(true)) {
+                this.executor.execute(this::runFlush);
+            }
+        } else if (!this.scheduled.getAndSet(true)) {
+            this.executor.schedule(this::runFlush, this.intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Flushes all changes made so far, waiting for the flush to finish.
+     */
+    void flush() {
+        try {
+            this.executor.submit(this::runFlush).get();
+        } catch (ExecutionException | InterruptedException e) {
+            throw new DukeException("Unable to save tasks", e);
+        }
+        this.checkFailure();
+    }
+
+    /**
+     * Flushes all changes made so far, then stops the saver thread, waiting for it to finish.
+     */
+    void close() {
+        this.executor.execute(this::runFlush);
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                throw new DukeException("Timed out saving tasks");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DukeException("Unable to save tasks", e);
+        }
+        this.checkFailure();
+    }
+
+    private void runFlush() {
+        //Changes from here on need another flush.
+        this.scheduled.set(false);
+        this.urgent.set(false);
+        if (this.failure != null) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            this.flush.run();
+            failed = false;
+        } catch (Exception e) {
+            this.failure = e;
+        } finally {
+            CommandMetrics.getInstance().getStage(CommandMetrics.Stage.Save)
+                    .record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Throws the failure of the last flush, if it failed.
+     */
+    void checkFailure() {
+        Exception failure = this.failure;
+        if (failure instanceof DukeException) {
+            throw (DukeException) failure;
+        }
+        if (failure != null) {
+            throw new DukeException("Unable to save tasks", failure);
+        }
+    }
+
+    /**
+     * Writes out changes, on the saver thread.
+     */
+    @FunctionalInterface
+    interface Flush {
+        void run() throws Exception;
+    }
+}
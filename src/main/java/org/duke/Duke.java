@@ -7,10 +7,13 @@ import org.duke.cmd.DeadlineTaskHandler;
 import org.duke.cmd.DeleteHandler;
 import org.duke.cmd.DoneHandler;
 import org.duke.cmd.EventTaskHandler;
+import org.duke.cmd.ExportHandler;
 import org.duke.cmd.FindHandler;
 import org.duke.cmd.Handler;
 import org.duke.cmd.HelpHandler;
+import org.duke.cmd.ImportHandler;
 import org.duke.cmd.ListHandler;
+import org.duke.cmd.StatsHandler;
 import org.duke.cmd.TodoTaskHandler;
 import org.duke.task.Task;
 import org.duke.ui.DukeIO;
@@ -27,10 +30,24 @@ public class Duke {
     };
     private final CommandDispatcher dispatcher;
     private final DukeIO io;
-    private TaskStorage taskStorage;
+    private TaskStore taskStorage;
 
     public Duke(DukeIO io) {
+        this(io, null, true);
+    }
+
+    /**
+     * Constructs a Duke instance working on an already loaded task store,
+     * so that several users can share one.
+     *
+     * @param io          User interface
+     * @param taskStorage Task store, or null to load the saved tasks when run
+     * @param fileAccess  Whether to bind the commands reading and writing files the user names,
+     *                    which should only be done for a user on this machine
+     */
+    public Duke(DukeIO io, TaskStore taskStorage, boolean fileAccess) {
         this.io = io;
+        this.taskStorage = taskStorage;
 
         this.dispatcher = new CommandDispatcher(this);
         //Bind command handlers
@@ -43,8 +60,15 @@ public class Duke {
                 new DeadlineTaskHandler(),
                 new EventTaskHandler(),
                 new DeleteHandler(),
+                new StatsHandler(),
                 new HelpHandler()
         );
+        if (fileAccess) {
+            this.dispatcher.bindCommands(
+                    new ExportHandler(),
+                    new ImportHandler()
+            );
+        }
         this.dispatcher.setUnknownCommandHandler(new Handler() {
             @Override
             protected void handleNoExit(Duke duke, Command command) {
@@ -58,8 +82,8 @@ public class Duke {
         return dispatcher;
     }
 
-    public void addTask(Task t) {
-        this.taskStorage.add(t);
+    public void addTask(Task task) {
+        Task t = this.taskStorage.add(task);
         this.io.say(
                 "Got it. I've added this task:",
                 "  " + t,
@@ -73,7 +97,9 @@ public class Duke {
         //Start off greeting the user.
         this.io.withDialogBlock(() -> {
             this.io.say(initialGreeting);
-            this.taskStorage = TaskStorage.load();
+            if (this.taskStorage == null) {
+                this.taskStorage = TaskStore.load();
+            }
         });
 
         //Start listen loop.
@@ -88,7 +114,17 @@ public class Duke {
         this.io.withDialogBlock(taskStorage::save);
     }
 
-    public TaskStorage getTaskStorage() {
+    /**
+     * Saves the tasks for good, and stops the task store's background work.
+     * Duke cannot be run again afterwards.
+     */
+    public void close() {
+        if (this.taskStorage != null) {
+            this.io.withDialogBlock(taskStorage::close);
+        }
+    }
+
+    public TaskStore getTaskStorage() {
         return taskStorage;
     }
 }
@@ -0,0 +1,651 @@
+package org.duke;
+
+import org.duke.metrics.CommandMetrics;
+import org.duke.task.Task;
+import org.duke.task.TaskCodec;
+import org.duke.util.LongIntHashMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Task store keeping its tasks on disk, so that task lists larger than memory can be served.
+ *
+ * Tasks are appended as records to a data file, which is never rewritten in place;
+ * changing a task appends a new record for it.
+ * Only the offsets of the records, in list order, and a bounded number of recently used
+ * pages of the data file are kept in memory.
+ * The offsets are written to an index file on {@link #save()},
+ * which also rewrites the data file once most of it is taken up by stale records.
+ * Looking a task up by id reads through the records, as only their offsets are kept in memory.
+ * Tasks saved by {@link TaskStorage} are carried over when the store is first opened, and the other way round.
+ */
+public class PagedTaskStore implements TaskStore {
+    private static final String PAGES_PROPERTY = "duke.storage.pages";
+    private static final String DATA_FILE = "duke.db";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int INDEX_MAGIC = 0x44554b49;
+    private static final int INDEX_VERSION = 2;
+    //Index version written before tasks had ids, whose records are in the first snapshot encoding.
+    private static final int INDEX_VERSION_WITHOUT_IDS = 1;
+    private static final int RECORD_VERSION_WITHOUT_IDS = 1;
+    private static final long MIN_COMPACT_BYTES = 1 << 20;
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final Path tempPath;
+    //A compaction writes both files here first, then moves the data file into place before the index.
+    private final Path compactedDataPath;
+    private final Path compactedIndexPath;
+    private final int maxPages;
+    private final LinkedHashMap<Long, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+    private FileChannel data;
+    private long dataLength;
+    //Bytes of the data file taken up by records no longer in the list.
+    private long staleBytes;
+    private long[] offsets;
+    private int size;
+    private long nextId = 1;
+    private boolean indexChanged = false;
+
+    private PagedTaskStore(Path dataPath, int maxPages) {
+        this.dataPath = dataPath;
+        this.indexPath = Paths.get(dataPath + INDEX_SUFFIX);
+        this.tempPath = Paths.get(dataPath + ".tmp");
+        this.compactedDataPath = Paths.get(dataPath + ".compact");
+        this.compactedIndexPath = Paths.get(this.indexPath + ".compact");
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Opens the store saved in {@code ./duke.db}, keeping as many pages in memory
+     * as the {@code duke.storage.pages} system property says (256 by default).
+     *
+     * @return Opened task store
+     */
+    public static PagedTaskStore open() {
+        return load(Paths.get("."), Integer.getInteger(PAGES_PROPERTY, 256));
+    }
+
+    /**
+     * Opens the store saved in the given directory.
+     * If nothing has been saved there yet, tasks saved by {@link TaskStorage} are migrated.
+     *
+     * @param directory Directory holding the saved files
+     * @param maxPages  Number of pages of the data file to keep in memory
+     * @return Opened task store
+     */
+    static PagedTaskStore load(Path directory, int maxPages) {
+        Path dataPath = directory.resolve(DATA_FILE);
+        boolean saved = Files.exists(Paths.get(dataPath + INDEX_SUFFIX));
+        PagedTaskStore store = open(dataPath, maxPages);
+        if (saved) {
+            return store;
+        }
+        try {
+            List<Task> tasks = TaskStorage.readSaved(directory);
+            if (tasks != null) {
+                store.fill(tasks);
+                store.save();
+                //Only once the tasks are safely in this store, so switching back does not load stale ones.
+                TaskStorage.setAsideSaved(directory);
+            }
+            return store;
+        } catch (IOException e) {
+            throw new DukeException("Unable to load saved data", e);
+        }
+    }
+
+    /**
+     * Reads the tasks saved in the given directory, so that {@link TaskStorage} can take them over.
+     *
+     * @param directory Directory holding the saved files
+     * @return Saved tasks, in list order, or null if nothing has been saved there
+     */
+    static List<Task> readSaved(Path directory) {
+        Path dataPath = directory.resolve(DATA_FILE);
+        if (!Files.exists(Paths.get(dataPath + INDEX_SUFFIX))) {
+            return null;
+        }
+        try (PagedTaskStore store = open(dataPath, 16)) {
+            return store.stream().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Renames the saved files in the given directory out of the way, with {@code .migrated} added,
+     * once their tasks have been carried over to {@link TaskStorage}.
+     *
+     * @param directory Directory holding the saved files
+     */
+    static void setAside(Path directory) throws IOException {
+        Path dataPath = directory.resolve(DATA_FILE);
+        for (Path path : new Path[]{dataPath, Paths.get(dataPath + INDEX_SUFFIX)}) {
+            if (Files.exists(path)) {
+                Files.move(path, Paths.get(path + TaskStorage.MIGRATED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Opens the store saved at the given path, creating it if needed.
+     *
+     * @param dataPath Data file path; the index is kept next to it
+     * @param maxPages Number of pages of the data file to keep in memory
+     * @return Opened task store
+     */
+    public static PagedTaskStore open(Path dataPath, int maxPages) {
+        PagedTaskStore store = new PagedTaskStore(dataPath, Math.max(1, maxPages));
+        try {
+            store.finishCompaction();
+            store.data = FileChannel.open(dataPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int version = INDEX_VERSION;
+            if (Files.exists(store.indexPath)) {
+                version = store.readIndex();
+            } else {
+                store.offsets = new long[16];
+            }
+            //Records appended after the last save are not in the index, so drop them.
+            if (store.data.size() > store.dataLength) {
+                store.data.truncate(store.dataLength);
+            }
+            if (version == INDEX_VERSION_WITHOUT_IDS) {
+                store.assignIds();
+            }
+            return store;
+        } catch (IOException e) {
+            throw new DukeException("Unable to open saved data", e);
+        }
+    }
+
+    /**
+     * Finishes or undoes a compaction cut short by a crash, so that the data file and index match again.
+     *
+     * While the compacted data file is still waiting, the old files are untouched, so it is dropped.
+     * Once it has been moved into place, its index is moved after it.
+     */
+    private void finishCompaction() throws IOException {
+        if (Files.exists(this.compactedDataPath)) {
+            Files.delete(this.compactedDataPath);
+            Files.deleteIfExists(this.compactedIndexPath);
+        } else if (Files.exists(this.compactedIndexPath)) {
+            Files.move(this.compactedIndexPath, this.indexPath,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Reads the index file.
+     *
+     * @return Version of the index
+     */
+    private int readIndex() throws IOException {
+        int version;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(this.indexPath)))) {
+            if (in.readInt() != INDEX_MAGIC) {
+                throw new DukeException("Saved task index is not in a known format");
+            }
+            version = in.readInt();
+            if (version != INDEX_VERSION && version != INDEX_VERSION_WITHOUT_IDS) {
+                throw new DukeException("Saved task index is not in a known format");
+            }
+            this.dataLength = in.readLong();
+            this.staleBytes = in.readLong();
+            if (version != INDEX_VERSION_WITHOUT_IDS) {
+                this.nextId = in.readLong();
+            }
+            this.size = in.readInt();
+            this.offsets = new long[Math.max(16, this.size)];
+            for (int i = 0; i < this.size; i++) {
+                this.offsets[i] = in.readLong();
+            }
+        }
+        if (this.data.size() < this.dataLength) {
+            throw new DukeException("Saved task data is shorter than its index");
+        }
+        return version;
+    }
+
+    /**
+     * Rewrites every record saved before tasks had ids, giving each task one in list order.
+     * The old records become stale, and are dropped when the data file is next compacted.
+     */
+    private void assignIds() throws IOException {
+        for (int i = 0; i < this.size; i++) {
+            long offset = this.offsets[i];
+            int length = this.recordLength(offset, new byte[5]);
+            byte[] record = new byte[length];
+            this.read(offset + prefixLength(length), record, 0, length);
+            Task task = TaskCodec.decode(ByteBuffer.wrap(record), RECORD_VERSION_WITHOUT_IDS)
+                    .withId(this.nextId++);
+            this.staleBytes += prefixLength(length) + length;
+            this.offsets[i] = this.appendRecord(task);
+        }
+        this.indexChanged = true;
+    }
+
+    private void writeIndex() throws IOException {
+        this.writeIndex(this.tempPath, this.offsets, this.dataLength, this.staleBytes);
+        Files.move(this.tempPath, this.indexPath,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.indexChanged = false;
+    }
+
+    /**
+     * Writes an index of the given records to the given path.
+     */
+    private void writeIndex(Path path, long[] offsets, long dataLength, long staleBytes) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(dataLength);
+            out.writeLong(staleBytes);
+            out.writeLong(this.nextId);
+            out.writeInt(this.size);
+            for (int i = 0; i < this.size; i++) {
+                out.writeLong(offsets[i]);
+            }
+        }
+    }
+
+    /**
+     * Finds a page of the data file, reading it in and evicting the least recently used page if needed.
+     */
+    private Page page(long number) throws IOException {
+        Page page = this.pages.get(number);
+        if (page != null) {
+            return page;
+        }
+        page = new Page(number);
+        long start = number << PAGE_SHIFT;
+        ByteBuffer buffer = ByteBuffer.wrap(page.bytes);
+        while (buffer.hasRemaining() && this.data.read(buffer, start + buffer.position()) > 0) {
+            //Keep reading until the page is full, or the end of the file.
+        }
+        page.length = buffer.position();
+        this.pages.put(number, page);
+        if (this.pages.size() > this.maxPages) {
+            Iterator<Page> eldest = this.pages.values().iterator();
+            eldest.next().writeBack();
+            eldest.remove();
+        }
+        return page;
+    }
+
+    private void read(long position, byte[] dst, int offset, int length) throws IOException {
+        while (length > 0) {
+            Page page = this.page(position >>> PAGE_SHIFT);
+            int pageOffset = (int) (position & (PAGE_SIZE - 1));
+            int count = Math.min(length, PAGE_SIZE - pageOffset);
+            System.arraycopy(page.bytes, pageOffset, dst, offset, count);
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private void write(long position, byte[] src, int offset, int length) throws IOException {
+        while (length > 0) {
+            Page page = this.page(position >>> PAGE_SHIFT);
+            int pageOffset = (int) (position & (PAGE_SIZE - 1));
+            int count = Math.min(length, PAGE_SIZE - pageOffset);
+            System.arraycopy(src, offset, page.bytes, pageOffset, count);
+            page.length = Math.max(page.length, pageOffset + count);
+            page.dirty = true;
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Reads the length prefix of the record at the given offset.
+     *
+     * @return Length of the record, not counting the prefix
+     */
+    private int recordLength(long offset, byte[] prefix) throws IOException {
+        this.read(offset, prefix, 0, (int) Math.min(prefix.length, this.dataLength - offset));
+        int length = 0;
+        for (int i = 0; i < prefix.length; i++) {
+            length |= (prefix[i] & 0x7F) << (7 * i);
+            if ((prefix[i] & 0x80) == 0) {
+                return length;
+            }
+        }
+        throw new DukeException("Saved task data is corrupt");
+    }
+
+    private static int prefixLength(int length) {
+        int bytes = 1;
+        while ((length >>>= 7) != 0) {
+            bytes++;
+        }
+        return bytes;
+    }
+
+    private Task readRecord(long offset) throws IOException {
+        int length = this.recordLength(offset, new byte[5]);
+        byte[] record = new byte[length];
+        this.read(offset + prefixLength(length), record, 0, length);
+        return TaskCodec.decode(ByteBuffer.wrap(record));
+    }
+
+    private long recordSize(long offset) throws IOException {
+        int length = this.recordLength(offset, new byte[5]);
+        return prefixLength(length) + length;
+    }
+
+    /**
+     * Appends a record for the given task to the data file.
+     *
+     * @return Offset of the record
+     */
+    private long appendRecord(Task task) throws IOException {
+        this.recordBuffer.reset();
+        TaskCodec.encode(task, this.recordBuffer);
+        int length = this.recordBuffer.size();
+        byte[] record = new byte[prefixLength(length) + length];
+        int pos = 0;
+        int remaining = length;
+        while ((remaining & ~0x7F) != 0) {
+            record[pos++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        record[pos++] = (byte) remaining;
+        System.arraycopy(this.recordBuffer.toByteArray(), 0, record, pos, length);
+
+        long offset = this.dataLength;
+        this.write(offset, record, 0, record.length);
+        this.dataLength += record.length;
+        return offset;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for length %d",
+                    index, this.size));
+        }
+    }
+
+    /**
+     * Appends a record for the given task, and adds it to the end of the list.
+     */
+    private void append(Task task) throws IOException {
+        long offset = this.appendRecord(task);
+        if (this.size == this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+        }
+        this.offsets[this.size++] = offset;
+        this.indexChanged = true;
+    }
+
+    /**
+     * Adds the given tasks to the empty store, giving an id to any task without a unique one.
+     *
+     * @param tasks Tasks, in list order
+     */
+    private void fill(List<Task> tasks) throws IOException {
+        for (Task task : tasks) {
+            this.nextId = Math.max(this.nextId, task.getId() + 1);
+        }
+        LongIntHashMap ids = new LongIntHashMap(tasks.size());
+        for (Task task : tasks) {
+            if (task.getId() <= 0 || ids.containsKey(task.getId())) {
+                task = task.withId(this.nextId++);
+            }
+            ids.put(task.getId(), this.size);
+            this.append(task);
+        }
+        this.indexChanged = true;
+    }
+
+    @Override
+    public Task add(Task task) {
+        Task t = task.withId(this.nextId++);
+        try {
+            this.append(t);
+            return t;
+        } catch (IOException e) {
+            throw new DukeException("Unable to save task", e);
+        }
+    }
+
+    @Override
+    public Task remove(int index) {
+        this.checkIndex(index);
+        try {
+            long offset = this.offsets[index];
+            Task removed = this.readRecord(offset);
+            this.staleBytes += this.recordSize(offset);
+            System.arraycopy(this.offsets, index + 1, this.offsets, index, this.size - index - 1);
+            this.size--;
+            this.indexChanged = true;
+            return removed;
+        } catch (IOException e) {
+            throw new DukeException("Unable to read saved task", e);
+        }
+    }
+
+    /**
+     * Removes the tasks at the given indices, closing up their offsets in one pass.
+     *
+     * @param indices Indices of tasks, in ascending order without repeats
+     * @return The removed tasks, in list order
+     */
+    @Override
+    public List<Task> removeAll(int[] indices) {
+        for (int index : indices) {
+            this.checkIndex(index);
+        }
+        try {
+            List<Task> removed = new ArrayList<>(indices.length);
+            int kept = indices.length == 0 ? this.size : indices[0];
+            int next = 0;
+            for (int i = kept; i < this.size; i++) {
+                long offset = this.offsets[i];
+                if (next < indices.length && indices[next] == i) {
+                    removed.add(this.readRecord(offset));
+                    this.staleBytes += this.recordSize(offset);
+                    next++;
+                } else {
+                    this.offsets[kept++] = offset;
+                }
+            }
+            this.size = kept;
+            this.indexChanged = true;
+            return removed;
+        } catch (IOException e) {
+            throw new DukeException("Unable to read saved task", e);
+        }
+    }
+
+    @Override
+    public Task get(int index) {
+        this.checkIndex(index);
+        try {
+            return this.readRecord(this.offsets[index]);
+        } catch (IOException e) {
+            throw new DukeException("Unable to read saved task", e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Stream<Task> stream() {
+        return IntStream.range(0, this.size).mapToObj(this::get);
+    }
+
+    @Override
+    public Task markComplete(int index) {
+        Task task = this.get(index);
+        if (task.isCompleted()) {
+            return task;
+        }
+        task = task.completedCopy();
+        try {
+            long offset = this.offsets[index];
+            this.staleBytes += this.recordSize(offset);
+            this.offsets[index] = this.appendRecord(task);
+            this.indexChanged = true;
+            return task;
+        } catch (IOException e) {
+            throw new DukeException("Unable to save task", e);
+        }
+    }
+
+    /**
+     * Writes out changed pages, then the index.
+     * If stale records take up most of the data file, it is rewritten without them first.
+     */
+    @Override
+    public void save() {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            if (this.staleBytes >= MIN_COMPACT_BYTES && this.staleBytes * 2 > this.dataLength) {
+                this.compact();
+            } else {
+                boolean flushed = false;
+                for (Page page : this.pages.values()) {
+                    flushed |= page.writeBack();
+                }
+                if (flushed) {
+                    this.data.force(false);
+                }
+                if (this.indexChanged) {
+                    this.writeIndex();
+                }
+            }
+            failed = false;
+        } catch (IOException e) {
+            throw new DukeException("Unable to save tasks", e);
+        } finally {
+            CommandMetrics.getInstance().getStage(CommandMetrics.Stage.Save)
+                    .record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Saves all changes, then closes the data file.
+     */
+    @Override
+    public void close() {
+        this.save();
+        try {
+            this.data.close();
+        } catch (IOException e) {
+            throw new DukeException("Unable to save tasks", e);
+        }
+    }
+
+    /**
+     * Copies the records still in the list to a fresh data file, in list order, and swaps it in.
+     *
+     * The fresh data file and its index are both written out before either is moved into place,
+     * and the data file is moved first, so that {@link #finishCompaction()} can tell how far a crash got.
+     */
+    private void compact() throws IOException {
+        Path compactedPath = this.compactedDataPath;
+        long[] compacted = new long[Math.max(16, this.size)];
+        long length = 0;
+        byte[] prefix = new byte[5];
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(compactedPath), PAGE_SIZE)) {
+            byte[] record = new byte[256];
+            for (int i = 0; i < this.size; i++) {
+                long offset = this.offsets[i];
+                int recordLength = this.recordLength(offset, prefix);
+                int recordSize = prefixLength(recordLength) + recordLength;
+                if (recordSize > record.length) {
+                    record = new byte[Math.max(recordSize, record.length * 2)];
+                }
+                this.read(offset, record, 0, recordSize);
+                out.write(record, 0, recordSize);
+                compacted[i] = length;
+                length += recordSize;
+            }
+        }
+        this.writeIndex(this.compactedIndexPath, compacted, length, 0);
+        force(compactedPath);
+        force(this.compactedIndexPath);
+
+        this.data.close();
+        this.pages.clear();
+        Files.move(compactedPath, this.dataPath,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(this.compactedIndexPath, this.indexPath,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.data = FileChannel.open(this.dataPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.offsets = compacted;
+        this.dataLength = length;
+        this.staleBytes = 0;
+        this.indexChanged = false;
+    }
+
+    private static void force(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * A cached page of the data file.
+     */
+    private class Page {
+        private final long number;
+        private final byte[] bytes = new byte[PAGE_SIZE];
+        private int length = 0;
+        private boolean dirty = false;
+
+        private Page(long number) {
+            this.number = number;
+        }
+
+        /**
+         * Writes the page back to the data file, if it was changed.
+         *
+         * @return Whether the page was written
+         */
+        private boolean writeBack() throws IOException {
+            if (!this.dirty) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(this.bytes, 0, this.length);
+            long start = this.number << PAGE_SHIFT;
+            while (buffer.hasRemaining()) {
+                PagedTaskStore.this.data.write(buffer, start + buffer.position());
+            }
+            this.dirty = false;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.duke;
+
+import org.duke.task.Task;
+import org.duke.util.LongIntHashMap;
+import org.duke.util.PersistentSlotVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trigram index over the task descriptions in one version of the slots, answering case-insensitive
+ * substring searches, along with a map from task ids to slots.
+ *
+ * Every three-character window of a task's lowercased description lists the task's slot.
+ * A search intersects the lists for the windows of each search term,
+ * then checks the few remaining candidates directly.
+ * Trigrams are packed into longs, and looked up without boxing in a {@link LongIntHashMap}
+ * giving the number of their posting list.
+ *
+ * An index never changes once built, so it can be searched from any number of threads without locking.
+ * As a slot's task keeps its description until the slot is emptied, an index also serves later versions
+ * with the same slots, as long as emptied slots are skipped, and slots added since are checked separately.
+ */
+class TaskIndex {
+    private static final int GRAM = 3;
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final long version;
+    private final int slotCount;
+    private final LongIntHashMap postingsByGram = new LongIntHashMap();
+    private final ArrayList<Postings> postings = new ArrayList<>();
+    private final LongIntHashMap slotsById;
+    private final String[] lowered;
+
+    /**
+     * Indexes the tasks in the given slots.
+     *
+     * @param slots   Slots of tasks
+     * @param version Version of the tasks the slots hold
+     */
+    TaskIndex(PersistentSlotVector<Task> slots, long version) {
+        this.version = version;
+        this.slotCount = slots.slotCount();
+        this.slotsById = new LongIntHashMap(slots.size());
+        this.lowered = new String[this.slotCount];
+        for (int slot = 0; slot < this.slotCount; slot++) {
+            Task task = slots.get(slot);
+            if (task != null) {
+                this.add(slot, task);
+            }
+        }
+    }
+
+    /**
+     * Packs the three characters from the given index into a long.
+     * A bit above them is set, so that no trigram packs to 0, which the map cannot hold.
+     */
+    private static long gram(String s, int i) {
+        return (1L << 48) | ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private void add(int slot, Task task) {
+        String description = task.getDescription().toLowerCase();
+        this.lowered[slot] = description;
+        this.slotsById.put(task.getId(), slot);
+        for (int i = 0; i + GRAM <= description.length(); i++) {
+            long gram = gram(description, i);
+            int list = this.postingsByGram.get(gram);
+            if (list < 0) {
+                list = this.postings.size();
+                this.postingsByGram.put(gram, list);
+                this.postings.add(new Postings());
+            }
+            this.postings.get(list).add(slot);
+        }
+    }
+
+    /**
+     * Returns the version of the tasks this index was built from.
+     *
+     * @return Version
+     */
+    long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns the number of slots indexed, every slot added later being past them.
+     *
+     * @return Slot count
+     */
+    int slotCount() {
+        return this.slotCount;
+    }
+
+    /**
+     * Finds the slot of the task with the given id.
+     *
+     * @param id Id of task
+     * @return Slot of task, or -1 if no indexed task has that id
+     */
+    int slotOf(long id) {
+        return this.slotsById.get(id);
+    }
+
+    /**
+     * Splits a query into the terms every matching description must contain.
+     *
+     * @param query Search terms, separated by whitespace
+     * @return Lowercased terms
+     */
+    static String[] terms(String query) {
+        return query.toLowerCase().trim().split("\\s+");
+    }
+
+    /**
+     * Checks whether a description contains every term, ignoring case.
+     *
+     * @param description Task description
+     * @param terms       Terms from {@link #terms(String)}
+     * @return Whether all terms are found
+     */
+    static boolean matches(String description, String[] terms) {
+        String lowered = description.toLowerCase();
+        for (String term : terms) {
+            if (!lowered.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the tasks containing every term of a query, ignoring case.
+     *
+     * @param terms Terms from {@link #terms(String)}
+     * @return Slots of matching tasks, in ascending order
+     */
+    int[] find(String[] terms) {
+        List<Postings> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                int list = this.postingsByGram.get(gram(term, i));
+                if (list < 0) {
+                    return NO_MATCHES;
+                }
+                lists.add(this.postings.get(list));
+            }
+        }
+
+        int[] matches = new int[16];
+        int matchCount = 0;
+        if (lists.isEmpty()) {
+            //Only short terms, so every task is a candidate.
+            for (int slot = 0; slot < this.slotCount; slot++) {
+                if (this.matches(slot, terms)) {
+                    matches = append(matches, matchCount++, slot);
+                }
+            }
+            return Arrays.copyOf(matches, matchCount);
+        }
+
+        //Walk the shortest list, looking each candidate up in the others.
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        Postings shortest = lists.get(0);
+        int[] cursors = new int[lists.size()];
+        candidates:
+        for (int i = 0; i < shortest.size; i++) {
+            int slot = shortest.slots[i];
+            for (int j = 1; j < lists.size(); j++) {
+                Postings other = lists.get(j);
+                int found = Arrays.binarySearch(other.slots, cursors[j], other.size, slot);
+                if (found < 0) {
+                    cursors[j] = -found - 1;
+                    if (cursors[j] == other.size) {
+                        break candidates;
+                    }
+                    continue candidates;
+                }
+                cursors[j] = found;
+            }
+            if (this.matches(slot, terms)) {
+                matches = append(matches, matchCount++, slot);
+            }
+        }
+        return Arrays.copyOf(matches, matchCount);
+    }
+
+    private boolean matches(int slot, String[] terms) {
+        String description = this.lowered[slot];
+        if (description == null) {
+            return false;
+        }
+        for (String term : terms) {
+            if (!description.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] append(int[] values, int count, int value) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count] = value;
+        return values;
+    }
+
+    /**
+     * Ascending slots of the tasks containing one trigram.
+     */
+    private static class Postings {
+        private int[] slots = new int[4];
+        private int size = 0;
+
+        private void add(int slot) {
+            //A trigram repeated within one description is only listed once.
+            if (this.size > 0 && this.slots[this.size - 1] == slot) {
+                return;
+            }
+            this.slots = append(this.slots, this.size++, slot);
+        }
+    }
+}
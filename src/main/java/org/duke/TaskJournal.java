@@ -0,0 +1,412 @@
+package org.duke;
+
+import org.duke.json.JsonException;
+import org.duke.json.JsonParser;
+import org.duke.json.ArrayHandler;
+import org.duke.json.JsonWriter;
+import org.duke.json.ObjectHandler;
+import org.duke.json.Receiver;
+import org.duke.json.ValueHandler;
+import org.duke.task.Task;
+import org.duke.task.TaskType;
+
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of the mutations made to a task list since its last snapshot.
+ *
+ * The first record of every journal describes the task list it applies to,
+ * so that a journal which has already been folded into a snapshot is never replayed twice.
+ * Records are kept in memory when logged, and only written to the file by {@link #flush()}.
+ */
+class TaskJournal implements AutoCloseable {
+    private static final ValueHandler<Record> recordHandler = new ValueHandler<>() {
+        public ObjectHandler<Record> handleObject() {
+            return new RecordFields();
+        }
+    };
+    private static final ValueHandler<int[]> indicesHandler = new ValueHandler<>() {
+        public ArrayHandler<int[]> handleArray() {
+            return new IndexList();
+        }
+    };
+
+    private final Path path;
+    private final boolean append;
+    //Records logged since the last flush, encoded but not yet written out.
+    private final StringWriter pending = new StringWriter();
+    private final JsonWriter pendingWriter = new JsonWriter(this.pending, true);
+    private Writer file;
+    //Task list a new journal applies to, until its base record is written.
+    private List<Task> base;
+    private int recordCount;
+    private int pendingCount;
+
+    private TaskJournal(Path path, boolean append, int recordCount) {
+        this.path = path;
+        this.append = append;
+        this.recordCount = recordCount;
+    }
+
+    /**
+     * Starts a new, empty journal at the given path, applying on top of the given tasks.
+     * The file is only truncated, and the base record hashed, once the journal is first flushed.
+     *
+     * @param path Journal path
+     * @param base Task list the journal applies to, which must not change afterwards
+     * @return New journal
+     */
+    static TaskJournal create(Path path, List<Task> base) {
+        TaskJournal journal = new TaskJournal(path, false, 0);
+        journal.base = base;
+        return journal;
+    }
+
+    /**
+     * Reopens an existing journal, so that new records are appended after the existing ones.
+     *
+     * @param path        Journal path
+     * @param recordCount Number of records already in the journal
+     * @return Reopened journal
+     */
+    static TaskJournal reopen(Path path, int recordCount) {
+        return new TaskJournal(path, true, recordCount);
+    }
+
+    /**
+     * Reads every complete record from the journal at the given path.
+     * A torn record at the end of the journal, left by a crash mid-write, is dropped,
+     * but stays in the file, so the journal must not be appended to afterwards.
+     *
+     * @param path Journal path
+     * @return Records read, or null if there is no journal
+     * @throws IOException If the journal cannot be read
+     */
+    static Contents read(Path path) throws IOException {
+        List<Record> records = new ArrayList<>();
+        try (FileReader read = new FileReader(path.toFile(), StandardCharsets.UTF_8)) {
+            JsonParser.parseAll(read, recordHandler, records::add);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (JsonException e) {
+            //Keep every record up til the torn one.
+            return new Contents(records, true);
+        }
+        return new Contents(records, false);
+    }
+
+    /**
+     * Checks whether the given records were journaled on top of the given task list.
+     *
+     * @param records Records read by {@link #read(Path)}
+     * @param tasks   Current task list
+     * @return Whether the records can be replayed onto the task list.
+     */
+    static boolean isBasedOn(List<Record> records, List<Task> tasks) {
+        if (records.isEmpty() || records.get(0).op != Op.Base) {
+            return false;
+        }
+        Record base = records.get(0);
+        return base.index == tasks.size()
+                && Long.toHexString(baseHash(tasks)).equals(base.hash);
+    }
+
+    /**
+     * Replays the given records onto the task list.
+     *
+     * @param records Records read by {@link #read(Path)}
+     * @param tasks   Task list to modify
+     */
+    static void replay(List<Record> records, List<Task> tasks) {
+        for (Record record : records) {
+            record.applyTo(tasks);
+        }
+    }
+
+    /**
+     * Hashes the sequence of tasks in a task list, ignoring their completion state.
+     *
+     * Completion is left out, as tasks can be marked done while a snapshot of them is being written.
+     * Replaying a completion record is harmless, whereas replaying an addition or removal is not.
+     */
+    private static long baseHash(List<Task> tasks) {
+        long hash = tasks.size();
+        for (Task task : tasks) {
+            hash = hash * 1_000_003L
+                    + task.getClass().getName().hashCode() * 31L
+                    + task.getDescription().hashCode();
+        }
+        return hash;
+    }
+
+    void logAdd(Task task) {
+        this.write(Op.Add, ctx -> ctx.writeField("task", task));
+    }
+
+    void logRemove(int index) {
+        this.write(Op.Remove, ctx -> ctx.writeField("index", index));
+    }
+
+    void logComplete(int index) {
+        this.write(Op.Complete, ctx -> ctx.writeField("index", index));
+    }
+
+    /**
+     * Logs the removal of several tasks at once, as one record.
+     *
+     * @param indices Indices of removed tasks, in ascending order without repeats
+     */
+    void logRemoveAll(int[] indices) {
+        this.write(Op.RemoveAll, ctx -> writeIndices(ctx, indices));
+    }
+
+    /**
+     * Logs the completion of several tasks at once, as one record.
+     *
+     * @param indices Indices of completed tasks, in ascending order without repeats
+     */
+    void logCompleteAll(int[] indices) {
+        this.write(Op.CompleteAll, ctx -> writeIndices(ctx, indices));
+    }
+
+    private static void writeIndices(JsonWriter.ObjectContext ctx, int[] indices) {
+        ctx.writeField("indices", vctx -> vctx.writeArray(actx -> {
+            for (int index : indices) {
+                actx.writeElem(ectx -> ectx.writeNumber(index));
+            }
+        }));
+    }
+
+    /**
+     * Returns the number of records in this journal, not counting its base record.
+     *
+     * @return Number of mutation records
+     */
+    synchronized int getRecordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * Returns the number of records logged since the journal was last flushed.
+     *
+     * @return Number of unwritten records
+     */
+    synchronized int getPendingCount() {
+        return this.pendingCount;
+    }
+
+    private synchronized void write(Op op, Consumer<JsonWriter.ObjectContext> fields) {
+        writeRecord(this.pendingWriter, op, fields);
+        this.recordCount++;
+        this.pendingCount++;
+    }
+
+    private static void writeRecord(JsonWriter writer, Op op, Consumer<JsonWriter.ObjectContext> fields) {
+        writer.writeValue(vctx -> vctx.writeObject(ctx -> {
+            ctx.writeField("op", op.name());
+            fields.accept(ctx);
+        }));
+        writer.endLine();
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new DukeException("Unable to write to journal", e);
+        }
+    }
+
+    /**
+     * Appends the records logged since the last flush to the journal file, in one write.
+     *
+     * Records can keep being logged from other threads meanwhile,
+     * but only one thread may flush a journal.
+     *
+     * @return Number of records written
+     * @throws IOException If the journal cannot be written
+     */
+    int flush() throws IOException {
+        String batch;
+        int batchCount;
+        synchronized (this) {
+            batch = this.pending.toString();
+            batchCount = this.pendingCount;
+        }
+        if (this.file == null) {
+            this.file = new FileWriter(this.path.toFile(), StandardCharsets.UTF_8, this.append);
+        }
+        if (this.base != null) {
+            List<Task> base = this.base;
+            StringWriter baseRecord = new StringWriter();
+            writeRecord(new JsonWriter(baseRecord, true), Op.Base, ctx -> {
+                ctx.writeField("size", base.size());
+                ctx.writeField("hash", Long.toHexString(baseHash(base)));
+            });
+            this.file.write(baseRecord.toString());
+            this.base = null;
+        }
+        this.file.write(batch);
+        this.file.flush();
+        //Only drop the records once written, so a failed write loses nothing.
+        synchronized (this) {
+            this.pending.getBuffer().delete(0, batch.length());
+            this.pendingCount -= batchCount;
+        }
+        return batchCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.file != null) {
+            this.file.close();
+        }
+    }
+
+    private enum Op {
+        Base,
+        Add,
+        Remove,
+        Complete,
+        RemoveAll,
+        CompleteAll
+    }
+
+    /**
+     * The records read from a journal file, and whether it ended partway through one.
+     */
+    static class Contents {
+        private final List<Record> records;
+        private final boolean torn;
+
+        private Contents(List<Record> records, boolean torn) {
+            this.records = records;
+            this.torn = torn;
+        }
+
+        List<Record> getRecords() {
+            return this.records;
+        }
+
+        boolean isTorn() {
+            return this.torn;
+        }
+    }
+
+    /**
+     * Represents a single journaled mutation.
+     */
+    static class Record {
+        private Op op;
+        private int index;
+        private int[] indices;
+        private String hash;
+        private Task task;
+
+        private void applyTo(List<Task> tasks) {
+            switch (this.op) {
+            case Add:
+                tasks.add(this.task);
+                break;
+            case Remove:
+                tasks.remove(this.index);
+                break;
+            case Complete:
+                tasks.set(this.index, tasks.get(this.index).completedCopy());
+                break;
+            case RemoveAll:
+                //Close up the gaps in one pass, rather than shifting the tail once per task.
+                int kept = 0;
+                int next = 0;
+                for (int i = 0; i < tasks.size(); i++) {
+                    if (next < this.indices.length && this.indices[next] == i) {
+                        next++;
+                    } else {
+                        tasks.set(kept++, tasks.get(i));
+                    }
+                }
+                tasks.subList(kept, tasks.size()).clear();
+                break;
+            case CompleteAll:
+                for (int index : this.indices) {
+                    tasks.set(index, tasks.get(index).completedCopy());
+                }
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private static class RecordFields implements ObjectHandler<Record> {
+        private final Record record = new Record();
+
+        public void handleField(String name, Receiver receiver) {
+            switch (name) {
+            case "op":
+                String op = receiver.receiveString();
+                try {
+                    this.record.op = Op.valueOf(op);
+                } catch (IllegalArgumentException e) {
+                    throw new JsonException("Unknown journal operation %s", e, op);
+                }
+                break;
+            case "size":
+            case "index":
+                //Older journals wrote these with a fraction, as in 3.0.
+                this.record.index = (int) receiver.receiveNumber();
+                break;
+            case "indices":
+                this.record.indices = receiver.receive(indicesHandler);
+                break;
+            case "hash":
+                this.record.hash = receiver.receiveString();
+                break;
+            case "task":
+                this.record.task = receiver.receive(new TaskType.Builder());
+                break;
+            default:
+                //Unknown fields are skipped.
+                break;
+            }
+        }
+
+        public Record handleEnd() {
+            if (this.record.op == null) {
+                throw new JsonException("Journal record has no operation");
+            }
+            if ((this.record.op == Op.RemoveAll || this.record.op == Op.CompleteAll)
+                    && this.record.indices == null) {
+                throw new JsonException("Journal record has no indices");
+            }
+            return this.record;
+        }
+    }
+
+    /**
+     * Collects an array of task indices, without boxing them.
+     */
+    private static class IndexList implements ArrayHandler<int[]> {
+        private int[] indices = new int[16];
+        private int size = 0;
+
+        public void handleElement(Receiver receiver) {
+            if (this.size == this.indices.length) {
+                this.indices = Arrays.copyOf(this.indices, this.size * 2);
+            }
+            this.indices[this.size++] = receiver.receiveInt();
+        }
+
+        public int[] handleEnd() {
+            return Arrays.copyOf(this.indices, this.size);
+        }
+    }
+}
@@ -2,62 +2,990 @@ package org.duke;
 
 import org.duke.json.JsonParser;
 import org.duke.json.JsonWriter;
+import org.duke.jfr.StorageLoadedEvent;
+import org.duke.jfr.StorageSavedEvent;
 import org.duke.json.ValueHandler;
 import org.duke.task.Task;
+import org.duke.task.TaskCodec;
 import org.duke.task.TaskType;
+import org.duke.util.LongIntHashMap;
+import org.duke.util.PersistentSlotVector;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-public class TaskStorage {
-    private static final String SAVE_PATH = "./duke.json";
-    private final ArrayList<Task> taskList;
+/**
+ * Stores the task list, persisting it as a snapshot plus a journal of later changes.
+ *
+ * Each mutation is appended to the journal as a small record,
+ * so saving costs time proportional to the change rather than to the list.
+ * Once the journal grows as long as the list itself,
+ * it is folded into a fresh snapshot.
+ *
+ * Records are written out by a {@link BackgroundSaver}, never by the thread making the change.
+ * Changes are flushed within {@code duke.save.interval} milliseconds (1000 by default),
+ * or as soon as {@code duke.save.threshold} records are waiting (256 by default),
+ * which bounds how much a crash can lose.
+ *
+ * Tasks are kept in slots, in list order. Removing a task leaves its slot empty rather than
+ * moving every later task up, and the slots are only packed together once empty ones pile up.
+ * The slots are a {@link PersistentSlotVector}, which also turns list indices into slots and back,
+ * and a map from task ids to slots finds tasks by id.
+ *
+ * Storage is safe to use from several threads. Changes are made one at a time, under a lock,
+ * and each publishes a new version of the slots, sharing most of it with the last.
+ * Readers take the latest version as a {@link #snapshot()}, without locking,
+ * and it never changes under them.
+ * Searches and id lookups go through a {@link TaskIndex}, which readers build from their own version
+ * and share with later ones, so that writers never wait on it.
+ */
+public class TaskStorage implements TaskStore {
+    private static final String FORMAT_PROPERTY = "duke.storage.format";
+    private static final String INTERVAL_PROPERTY = "duke.save.interval";
+    private static final String THRESHOLD_PROPERTY = "duke.save.threshold";
+    private static final int MIN_COMPACT_RECORDS = 1024;
+    private static final int MIN_PACK_SLOTS = 1024;
+    private static final int MIN_REINDEX_SLOTS = 64;
+    private static final Path CURRENT_DIRECTORY = Paths.get(".");
+    static final String MIGRATED_SUFFIX = ".migrated";
 
+    //Held while changing the tasks, so that changes are made one at a time.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    //Latest version of the tasks, with empty slots left by removals until the slots are packed.
+    private volatile Snapshot current = new Snapshot(PersistentSlotVector.empty(), 0, 0);
+    //The rest are guarded by writeLock.
+    private LongIntHashMap slotsById = new LongIntHashMap(16);
+    private long nextId = 1;
+    private final Format format;
+    private final Path savePath;
+    private final Path tempPath;
+    private final Path journalPath;
+    private final Path compactingPath;
+    //Journals set aside for compaction, oldest first, guarded by this.
+    private final ArrayDeque<Rotation> rotations = new ArrayDeque<>();
+    //Guarded by this, as the saver thread flushes it.
+    private TaskJournal journal;
+    private volatile boolean compacting = false;
+    private BackgroundSaver saver;
+    //Index of the latest version searched so far, replaced by readers of later versions as they fall behind.
+    private final AtomicReference<TaskIndex> index = new AtomicReference<>();
+
+    /**
+     * Constructs an in-memory task storage, which only persists when {@link #save()} is called.
+     *
+     * @param taskList Initial tasks
+     */
     public TaskStorage(ArrayList<Task> taskList) {
-        this.taskList = taskList;
+        this(Format.Json, CURRENT_DIRECTORY);
+        this.fill(taskList);
+    }
+
+    private TaskStorage(Format format, Path directory) {
+        this.format = format;
+        this.savePath = directory.resolve(format.getSavePath().getFileName());
+        this.tempPath = Paths.get(this.savePath + ".tmp");
+        this.journalPath = Paths.get(this.savePath + ".journal");
+        this.compactingPath = Paths.get(this.savePath + ".journal.old");
     }
 
+    /**
+     * Loads the saved tasks, in the snapshot format selected by the {@code duke.storage.format}
+     * system property ({@code json} by default, or {@code binary}).
+     *
+     * @return Loaded task storage, journaling further changes.
+     */
     public static TaskStorage load() {
-        try (FileReader read = new FileReader(SAVE_PATH)) {
-            return new TaskStorage(JsonParser.parse(read, ValueHandler.listOf(new TaskType.Builder())));
-        } catch (FileNotFoundException e) {
-            return new TaskStorage(new ArrayList<>());
-        } catch (IOException e) {
+        return load(Format.fromString(System.getProperty(FORMAT_PROPERTY, "json")));
+    }
+
+    /**
+     * Loads the saved snapshot, and replays any journaled changes on top of it.
+     * If nothing has been saved in the given format yet, tasks saved in the other format,
+     * or else by {@link PagedTaskStore}, are migrated.
+     *
+     * @param format Snapshot format
+     * @return Loaded task storage, journaling further changes.
+     */
+    public static TaskStorage load(Format format) {
+        return load(format, CURRENT_DIRECTORY);
+    }
+
+    /**
+     * Loads the tasks saved in the given directory, as {@link #load(Format)} does from the current one.
+     *
+     * @param format    Snapshot format
+     * @param directory Directory holding the saved files
+     * @return Loaded task storage, journaling further changes.
+     */
+    static TaskStorage load(Format format, Path directory) {
+        StorageLoadedEvent event = new StorageLoadedEvent();
+        event.begin();
+        TaskStorage storage = open(format, directory);
+        if (event.shouldCommit()) {
+            event.format = format.name().toLowerCase();
+            event.taskCount = storage.size();
+            event.bytes = sizeOf(storage.savePath) + sizeOf(storage.journalPath);
+            event.commit();
+        }
+        return storage;
+    }
+
+    private static TaskStorage open(Format format, Path directory) {
+        try {
+            TaskStorage storage = new TaskStorage(format, directory);
+            storage.saver = new BackgroundSaver(storage::flushChanges,
+                    Long.getLong(INTERVAL_PROPERTY, 1000), Integer.getInteger(THRESHOLD_PROPERTY, 256));
+            ArrayList<Task> tasks = new ArrayList<>();
+            if (!storage.hasSavedData()) {
+                Format other = format == Format.Json ? Format.Binary : Format.Json;
+                TaskStorage previous = new TaskStorage(other, directory);
+                if (previous.hasSavedData()) {
+                    previous.recover(tasks);
+                    storage.migrate(tasks);
+                    //Only once the tasks are safely in the new format, so switching back does not load stale ones.
+                    previous.setAside();
+                    return storage;
+                }
+                List<Task> paged = PagedTaskStore.readSaved(directory);
+                if (paged != null) {
+                    storage.migrate(paged);
+                    PagedTaskStore.setAside(directory);
+                    return storage;
+                }
+            }
+
+            int journalRecords = storage.recover(tasks);
+            if (storage.fill(tasks)) {
+                //Tasks saved before ids existed were just given some, which only a fresh snapshot keeps.
+                journalRecords = -1;
+            }
+            if (journalRecords < 0) {
+                storage.compact();
+                storage.saver.flush();
+            } else if (journalRecords > 0) {
+                storage.journal = TaskJournal.reopen(storage.journalPath, journalRecords);
+            } else {
+                storage.journal = TaskJournal.create(storage.journalPath, tasks);
+            }
+            return storage;
+        } catch (DukeException e) {
+            throw e;
+        } catch (Exception e) {
             throw new DukeException("Unable to load saved data", e);
         }
     }
 
+    /**
+     * Returns the size of a file, or 0 if it does not exist.
+     */
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Takes over the tasks saved by another store, writing them out as a fresh snapshot.
+     */
+    private void migrate(List<Task> tasks) throws IOException {
+        this.fill(tasks);
+        this.compact();
+        this.saver.flush();
+    }
+
+    /**
+     * Reads the tasks saved in the given directory in either format, so that another store can take them over.
+     *
+     * @param directory Directory holding the saved files
+     * @return Saved tasks, in list order, or null if nothing has been saved there
+     */
+    static List<Task> readSaved(Path directory) throws IOException {
+        for (Format format : Format.values()) {
+            TaskStorage saved = new TaskStorage(format, directory);
+            if (saved.hasSavedData()) {
+                ArrayList<Task> tasks = new ArrayList<>();
+                saved.recover(tasks);
+                return tasks;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sets aside the files saved in the given directory in either format,
+     * once their tasks have been carried over to another store.
+     *
+     * @param directory Directory holding the saved files
+     */
+    static void setAsideSaved(Path directory) throws IOException {
+        for (Format format : Format.values()) {
+            new TaskStorage(format, directory).setAside();
+        }
+    }
+
+    /**
+     * Renames the saved files out of the way, with {@value #MIGRATED_SUFFIX} added,
+     * once their tasks have been carried over to another format.
+     */
+    private void setAside() throws IOException {
+        for (Path path : new Path[]{this.savePath, this.journalPath, this.compactingPath}) {
+            if (Files.exists(path)) {
+                Files.move(path, Paths.get(path + MIGRATED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private boolean hasSavedData() {
+        return Files.exists(this.savePath)
+                || Files.exists(this.journalPath)
+                || Files.exists(this.compactingPath);
+    }
+
+    /**
+     * Puts the given tasks in the slots, giving an id to any task without a unique one.
+     *
+     * @param tasks Tasks, in list order, which are copied out
+     * @return Whether any task was given a new id
+     */
+    private boolean fill(List<Task> tasks) {
+        int size = tasks.size();
+        Task[] slots = tasks.toArray(new Task[0]);
+        this.slotsById = new LongIntHashMap(size);
+        for (Task task : slots) {
+            this.nextId = Math.max(this.nextId, task.getId() + 1);
+        }
+        boolean assigned = false;
+        for (int slot = 0; slot < size; slot++) {
+            Task task = slots[slot];
+            if (task.getId() <= 0 || this.slotsById.containsKey(task.getId())) {
+                task = task.withId(this.nextId++);
+                slots[slot] = task;
+                assigned = true;
+            }
+            this.slotsById.put(task.getId(), slot);
+        }
+        this.publishRenumbered(PersistentSlotVector.of(slots, size));
+        return assigned;
+    }
+
+    /**
+     * Moves the live tasks down over the empty slots, once there are more empty slots than live ones.
+     */
+    private void packSlots() {
+        PersistentSlotVector<Task> slots = this.current.slots;
+        int empty = slots.slotCount() - slots.size();
+        if (empty < MIN_PACK_SLOTS || empty <= slots.size()) {
+            return;
+        }
+        Task[] packed = slots.toList().toArray(new Task[0]);
+        this.slotsById.clear();
+        for (int slot = 0; slot < packed.length; slot++) {
+            this.slotsById.put(packed[slot].getId(), slot);
+        }
+        this.publishRenumbered(PersistentSlotVector.of(packed, packed.length));
+    }
+
+    /**
+     * Publishes the next version of the tasks, keeping every task in its slot.
+     */
+    private void publish(PersistentSlotVector<Task> slots) {
+        Snapshot last = this.current;
+        this.current = new Snapshot(slots, last.version + 1, last.firstVersion);
+    }
+
+    /**
+     * Publishes the next version of the tasks, with tasks moved to other slots,
+     * so that no index of an earlier version is used for it.
+     */
+    private void publishRenumbered(PersistentSlotVector<Task> slots) {
+        long version = this.current.version + 1;
+        this.current = new Snapshot(slots, version, version);
+    }
+
+    /**
+     * Copies out the live tasks, in list order.
+     */
+    private ArrayList<Task> liveTasks() {
+        return this.current.slots.toList();
+    }
+
+    /**
+     * Reads the snapshot into the given list, then replays any journals on top of it.
+     *
+     * @param tasks Empty list to read into
+     * @return Number of records in the current journal, which can be appended to,
+     *     or -1 if the journals need folding into a fresh snapshot.
+     */
+    private int recover(ArrayList<Task> tasks) throws IOException {
+        tasks.addAll(this.format.readSnapshot(this.savePath));
+        TaskJournal.Contents compacting = TaskJournal.read(this.compactingPath);
+        TaskJournal.Contents current = TaskJournal.read(this.journalPath);
+
+        //A leftover compacting journal means the last compaction did not finish.
+        //Replay it only if its snapshot was not written yet.
+        boolean needsCompaction = compacting != null;
+        if (compacting != null && TaskJournal.isBasedOn(compacting.getRecords(), tasks)) {
+            TaskJournal.replay(compacting.getRecords(), tasks);
+        }
+
+        if (current != null && TaskJournal.isBasedOn(current.getRecords(), tasks)) {
+            TaskJournal.replay(current.getRecords(), tasks);
+            //A torn record stays in the file, and a record appended after it could never be read back.
+            needsCompaction |= current.isTorn();
+        } else if (current != null) {
+            //Journal does not apply to the snapshot, so it cannot be replayed.
+            needsCompaction = true;
+        }
+
+        if (needsCompaction) {
+            return -1;
+        }
+        return current == null ? 0 : current.getRecords().size() - 1;
+    }
+
+    /**
+     * Writes the given tasks to a temporary file, then moves it over the snapshot.
+     */
+    private void writeSnapshot(List<Task> tasks) throws Exception {
+        StorageSavedEvent event = new StorageSavedEvent();
+        event.begin();
+        this.format.writeSnapshot(tasks, this.tempPath);
+        Files.move(this.tempPath, this.savePath,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (event.shouldCommit()) {
+            event.kind = StorageSavedEvent.SNAPSHOT;
+            event.format = this.format.name().toLowerCase();
+            event.taskCount = tasks.size();
+            event.bytes = sizeOf(this.savePath);
+            event.commit();
+        }
+    }
+
+    /**
+     * Makes sure all changes so far are persisted.
+     *
+     * For journaled storage, this waits for the saver to flush the journal and finish any compaction.
+     * Otherwise, the whole task list is written out.
+     */
+    @Override
     public void save() {
-        try (FileWriter write = new FileWriter(SAVE_PATH);
-             JsonWriter jw = new JsonWriter(write)) {
-            jw.writeValue(taskList);
-        } catch (Exception e) {
-            throw new DukeException(e);
+        if (this.journal == null) {
+            try {
+                this.writeSnapshot(this.liveTasks());
+            } catch (Exception e) {
+                throw new DukeException(e);
+            }
+            return;
+        }
+        this.saver.flush();
+    }
+
+    /**
+     * Persists all changes so far, then stops the saver thread and closes the journal.
+     */
+    @Override
+    public void close() {
+        if (this.journal == null) {
+            this.save();
+            return;
+        }
+        this.saver.close();
+        synchronized (this) {
+            try {
+                this.journal.close();
+            } catch (IOException e) {
+                throw new DukeException("Unable to save tasks", e);
+            }
+        }
+    }
+
+    /**
+     * Sets the current journal aside to be folded into a fresh snapshot, and starts a new one.
+     *
+     * The saver writes the snapshot, so that changes can keep being journaled meanwhile.
+     */
+    private void compact() {
+        ArrayList<Task> snapshot = this.liveTasks();
+        TaskJournal next = TaskJournal.create(this.journalPath, snapshot);
+        this.compacting = true;
+        synchronized (this) {
+            this.rotations.add(new Rotation(this.journal, next, snapshot));
+            this.journal = next;
         }
     }
 
-    public void add(Task t) {
-        this.taskList.add(t);
+    /**
+     * Writes out the changes journaled so far, and carries out any compactions set up meanwhile.
+     * Runs on the saver thread.
+     */
+    private void flushChanges() throws Exception {
+        while (true) {
+            Rotation rotation;
+            TaskJournal current;
+            synchronized (this) {
+                rotation = this.rotations.poll();
+                current = this.journal;
+            }
+            if (rotation == null) {
+                this.flushJournal(current);
+                return;
+            }
+            rotation.apply();
+        }
     }
 
+    private void flushJournal(TaskJournal journal) throws IOException {
+        StorageSavedEvent event = new StorageSavedEvent();
+        //The journal's growth is only measured while the event is recorded.
+        long before = event.isEnabled() ? sizeOf(this.journalPath) : 0;
+        event.begin();
+        int records = journal.flush();
+        if (records > 0 && event.shouldCommit()) {
+            event.kind = StorageSavedEvent.JOURNAL;
+            event.format = this.format.name().toLowerCase();
+            event.taskCount = this.size();
+            event.records = records;
+            event.bytes = sizeOf(this.journalPath) - before;
+            event.commit();
+        }
+    }
 
+    /**
+     * Throws the failure of any earlier save, before a change is made which could not be saved either.
+     */
+    private void checkSaved() {
+        if (this.saver != null) {
+            this.saver.checkFailure();
+        }
+    }
+
+    private void journaled() {
+        if (this.journal == null) {
+            return;
+        }
+        int records = this.journal.getRecordCount();
+        if (records >= MIN_COMPACT_RECORDS && records >= this.size() && !this.compacting) {
+            this.compact();
+        }
+        this.saver.changed(this.journal.getPendingCount());
+    }
+
+    @Override
+    public Task add(Task task) {
+        this.writeLock.lock();
+        try {
+            this.checkSaved();
+            Task t = task.withId(this.nextId++);
+            PersistentSlotVector<Task> slots = this.current.slots;
+            this.slotsById.put(t.getId(), slots.slotCount());
+            this.publish(slots.append(t));
+            if (this.journal != null) {
+                this.journal.logAdd(t);
+            }
+            this.journaled();
+            return t;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
     public int size() {
-        return this.taskList.size();
+        return this.current.size();
     }
 
+    /**
+     * Removes the task at the given index, leaving its slot empty.
+     *
+     * @param index Index of task
+     * @return The removed task
+     */
+    @Override
     public Task remove(int index) {
-        return this.taskList.remove(index);
+        this.writeLock.lock();
+        try {
+            this.checkSaved();
+            PersistentSlotVector<Task> slots = this.current.slots;
+            int slot = slots.select(index);
+            Task removed = slots.get(slot);
+            this.publish(slots.set(slot, null));
+            this.slotsById.remove(removed.getId());
+            if (this.journal != null) {
+                this.journal.logRemove(index);
+            }
+            this.packSlots();
+            this.journaled();
+            return removed;
+        } finally {
+            this.writeLock.unlock();
+        }
     }
 
+    /**
+     * Removes the tasks at the given indices, emptying their slots in one pass,
+     * and journaling them as one record.
+     *
+     * @param indices Indices of tasks, in ascending order without repeats
+     * @return The removed tasks, in list order
+     */
+    @Override
+    public List<Task> removeAll(int[] indices) {
+        this.writeLock.lock();
+        try {
+            this.checkSaved();
+            PersistentSlotVector<Task> slots = this.current.slots;
+            return this.removeSlots(slots, this.selectAll(slots, indices), indices);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the tasks with the given ids, finding them by id under the same lock as the change,
+     * so that no other change can come between.
+     *
+     * @param ids Ids of tasks, without repeats
+     * @return The removed tasks, in list order
+     */
+    @Override
+    public List<Task> removeByIds(long[] ids) {
+        this.writeLock.lock();
+        try {
+            this.checkSaved();
+            PersistentSlotVector<Task> slots = this.current.slots;
+            int[] removedSlots = this.slotsOf(ids);
+            return this.removeSlots(slots, removedSlots, this.ranksOf(slots, removedSlots));
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Empties the given slots in one pass, and journals their removal as one record.
+     * Called with the write lock held.
+     */
+    private List<Task> removeSlots(PersistentSlotVector<Task> slots, int[] removedSlots, int[] indices) {
+        List<Task> removed = new ArrayList<>(removedSlots.length);
+        for (int slot : removedSlots) {
+            Task task = slots.get(slot);
+            this.slotsById.remove(task.getId());
+            removed.add(task);
+        }
+        this.publish(slots.setAll(removedSlots, null));
+        if (this.journal != null) {
+            this.journal.logRemoveAll(indices);
+        }
+        this.packSlots();
+        this.journaled();
+        return removed;
+    }
+
+    /**
+     * Finds the slots of the tasks at the given indices, checking every index first.
+     */
+    private int[] selectAll(PersistentSlotVector<Task> slots, int[] indices) {
+        int[] selected = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            selected[i] = slots.select(indices[i]);
+        }
+        return selected;
+    }
+
+    /**
+     * Finds the slots of the tasks with the given ids, in list order, checking every id first.
+     */
+    private int[] slotsOf(long[] ids) {
+        int[] selected = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            selected[i] = this.slotsById.get(ids[i]);
+            if (selected[i] < 0) {
+                throw new DukeException("There's no task with that id!");
+            }
+        }
+        Arrays.sort(selected);
+        return selected;
+    }
+
+    /**
+     * Finds the indices of the tasks in the given slots.
+     */
+    private int[] ranksOf(PersistentSlotVector<Task> slots, int[] selected) {
+        int[] indices = new int[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            indices[i] = slots.rank(selected[i]);
+        }
+        return indices;
+    }
+
+    /**
+     * Marks the task at the given index as completed.
+     *
+     * @param index Index of task
+     * @return The completed task
+     */
+    @Override
+    public Task markComplete(int index) {
+        this.writeLock.lock();
+        try {
+            this.checkSaved();
+            PersistentSlotVector<Task> slots = this.current.slots;
+            int slot = slots.select(index);
+            Task task = slots.get(slot).completedCopy();
+            this.publish(slots.set(slot, task));
+            if (this.journal != null) {
+                this.journal.logComplete(index);
+            }
+            this.journaled();
+            return task;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Marks the tasks at the given indices as completed, journaling them as one record.
+     *
+     * @param indices Indices of tasks, in ascending order without repeats
+     * @return The completed tasks, in list order
+     */
+    @Override
+    public List<Task> markCompleteAll(int[] indices) {
+        this.writeLock.lock();
+        try {
+            this.checkSaved();
+            PersistentSlotVector<Task> slots = this.current.slots;
+            return this.completeSlots(slots, this.selectAll(slots, indices), indices);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Marks the tasks with the given ids as completed, finding them by id under the same lock as the change,
+     * so that no other change can come between.
+     *
+     * @param ids Ids of tasks, without repeats
+     * @return The completed tasks, in list order
+     */
+    @Override
+    public List<Task> markCompleteByIds(long[] ids) {
+        this.writeLock.lock();
+        try {
+            this.checkSaved();
+            PersistentSlotVector<Task> slots = this.current.slots;
+            int[] changedSlots = this.slotsOf(ids);
+            return this.completeSlots(slots, changedSlots, this.ranksOf(slots, changedSlots));
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Completes the tasks in the given slots, and journals it as one record.
+     * Called with the write lock held.
+     */
+    private List<Task> completeSlots(PersistentSlotVector<Task> slots, int[] changedSlots, int[] indices) {
+        Task[] completed = new Task[changedSlots.length];
+        for (int i = 0; i < changedSlots.length; i++) {
+            completed[i] = slots.get(changedSlots[i]).completedCopy();
+        }
+        this.publish(slots.setAll(changedSlots, completed));
+        if (this.journal != null) {
+            this.journal.logCompleteAll(indices);
+        }
+        this.journaled();
+        return Arrays.asList(completed);
+    }
+
+    /**
+     * Returns the latest version of the tasks, which later changes leave as it is.
+     *
+     * @return Unchanging view of the tasks
+     */
+    @Override
+    public TaskView snapshot() {
+        return this.current;
+    }
+
+    @Override
     public Stream<Task> stream() {
-        return this.taskList.stream();
+        return this.current.stream();
     }
 
+    @Override
+    public Stream<Task> stream(int from, int to) {
+        return this.current.stream(from, to);
+    }
+
+    @Override
+    public IntStream find(String query) {
+        return this.current.find(query);
+    }
+
+    @Override
     public Task get(int i) {
-        return this.taskList.get(i);
+        return this.current.get(i);
+    }
+
+    @Override
+    public int indexOf(long id) {
+        return this.current.indexOf(id);
+    }
+
+    /**
+     * One version of the tasks, which never changes once published.
+     *
+     * Searches and id lookups use the shared index if it was built from this version,
+     * or from an earlier one with the same slots, checking only the slots added since.
+     * Otherwise, or once too many slots have been added since, they index this version instead,
+     * without locking, and share that index with later versions.
+     */
+    private class Snapshot implements TaskView {
+        private final PersistentSlotVector<Task> slots;
+        private final long version;
+        //Earliest version with the same slots, each holding the same task or none.
+        private final long firstVersion;
+
+        private Snapshot(PersistentSlotVector<Task> slots, long version, long firstVersion) {
+            this.slots = slots;
+            this.version = version;
+            this.firstVersion = firstVersion;
+        }
+
+        @Override
+        public Task get(int index) {
+            return this.slots.get(this.slots.select(index));
+        }
+
+        @Override
+        public int size() {
+            return this.slots.size();
+        }
+
+        @Override
+        public Stream<Task> stream() {
+            return this.slots.stream(0);
+        }
+
+        /**
+         * Streams the tasks from one index up til another, finding the first one's slot,
+         * then walking the slots from there.
+         *
+         * @param from Index of first task
+         * @param to   Index after last task
+         * @return Tasks in the range, in list order
+         */
+        @Override
+        public Stream<Task> stream(int from, int to) {
+            if (from < 0 || to > this.size() || from > to) {
+                throw new IndexOutOfBoundsException(String.format("Range %d-%d out of bounds for length %d",
+                        from, to, this.size()));
+            }
+            if (from == to) {
+                return Stream.empty();
+            }
+            return this.slots.stream(this.slots.select(from)).limit(to - from);
+        }
+
+        /**
+         * Returns an index usable for this version, building and sharing one if need be.
+         */
+        private TaskIndex index() {
+            AtomicReference<TaskIndex> shared = TaskStorage.this.index;
+            TaskIndex index = shared.get();
+            if (index != null && index.getVersion() >= this.firstVersion && index.getVersion() <= this.version) {
+                int added = this.slots.slotCount() - index.slotCount();
+                if (added <= Math.max(MIN_REINDEX_SLOTS, index.slotCount() / 8)) {
+                    return index;
+                }
+            }
+            TaskIndex built = new TaskIndex(this.slots, this.version);
+            //Only an index of a later version is replaced, so that readers of older ones cannot set it back.
+            while (index == null || index.getVersion() < this.version) {
+                if (shared.compareAndSet(index, built)) {
+                    break;
+                }
+                index = shared.get();
+            }
+            return built;
+        }
+
+        /**
+         * Finds the tasks whose descriptions contain every word of the query, ignoring case.
+         *
+         * @param query Words to search for
+         * @return Indices of matching tasks, in ascending order
+         */
+        @Override
+        public IntStream find(String query) {
+            TaskIndex index = this.index();
+            String[] terms = TaskIndex.terms(query);
+            IntStream.Builder matches = IntStream.builder();
+            for (int slot : index.find(terms)) {
+                if (this.slots.get(slot) != null) {
+                    matches.add(this.slots.rank(slot));
+                }
+            }
+            //Tasks added since the index was built are checked directly.
+            Iterator<Task> added = this.slots.iterator(index.slotCount());
+            for (int position = this.slots.rank(index.slotCount()); added.hasNext(); position++) {
+                if (TaskIndex.matches(added.next().getDescription(), terms)) {
+                    matches.add(position);
+                }
+            }
+            return matches.build();
+        }
+
+        /**
+         * Finds the index of the task with the given id.
+         *
+         * @param id Id of task
+         * @return Index of task, or -1 if no task has that id
+         */
+        @Override
+        public int indexOf(long id) {
+            TaskIndex index = this.index();
+            int slot = index.slotOf(id);
+            if (slot >= 0) {
+                return this.slots.get(slot) == null ? -1 : this.slots.rank(slot);
+            }
+            Iterator<Task> added = this.slots.iterator(index.slotCount());
+            for (int position = this.slots.rank(index.slotCount()); added.hasNext(); position++) {
+                if (added.next().getId() == id) {
+                    return position;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A journal set aside for compaction, along with the journal replacing it
+     * and the snapshot the replacement applies to.
+     */
+    private class Rotation {
+        private final TaskJournal previous;
+        private final TaskJournal next;
+        private final List<Task> snapshot;
+
+        private Rotation(TaskJournal previous, TaskJournal next, List<Task> snapshot) {
+            this.previous = previous;
+            this.next = next;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Moves the previous journal aside, starts the next one, then writes the snapshot.
+         * Until the snapshot is in place, the journal moved aside is still replayed on load.
+         *
+         * Without a previous journal, as when compacting on load, the journals on disk may still be
+         * all that holds some changes, so the snapshot is written before the next journal replaces them.
+         */
+        private void apply() throws Exception {
+            if (this.previous == null) {
+                TaskStorage.this.writeSnapshot(this.snapshot);
+                this.next.flush();
+            } else {
+                TaskStorage.this.flushJournal(this.previous);
+                this.previous.close();
+                Files.move(TaskStorage.this.journalPath, TaskStorage.this.compactingPath,
+                        StandardCopyOption.REPLACE_EXISTING);
+                this.next.flush();
+                TaskStorage.this.writeSnapshot(this.snapshot);
+            }
+            Files.deleteIfExists(TaskStorage.this.compactingPath);
+            TaskStorage.this.compacting = false;
+        }
+    }
+
+    /**
+     * Enumerates the on-disk formats for task snapshots.
+     */
+    public enum Format {
+        Json("./duke.json"),
+        Binary("./duke.bin");
+
+        private final Path savePath;
+
+        Format(String savePath) {
+            this.savePath = Paths.get(savePath);
+        }
+
+        /**
+         * Finds the format with the given name, case insensitively.
+         *
+         * @param value Format name
+         * @return Matching format
+         */
+        public static Format fromString(String value) {
+            for (Format f : Format.values()) {
+                if (f.name().equalsIgnoreCase(value)) {
+                    return f;
+                }
+            }
+            throw new DukeException(String.format("Unknown storage format %s", value));
+        }
+
+        public Path getSavePath() {
+            return this.savePath;
+        }
+
+        /**
+         * Reads a snapshot by memory-mapping it, and decoding its bytes in place.
+         * JSON snapshots are decoded in parallel chunks.
+         */
+        private ArrayList<Task> readSnapshot(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (this == Json && size > Integer.MAX_VALUE) {
+                    //Too large to map as one buffer, so read it as a stream instead.
+                    return JsonParser.parse(Channels.newReader(channel, StandardCharsets.UTF_8),
+                            ValueHandler.listOf(new TaskType.Builder()));
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (this == Binary) {
+                    return TaskCodec.read(mapped);
+                }
+                return JsonParser.parseArray(mapped, new TaskType.Builder(), ForkJoinPool.commonPool());
+            } catch (NoSuchFileException e) {
+                return new ArrayList<>();
+            }
+        }
+
+        private void writeSnapshot(List<Task> tasks, Path path) throws Exception {
+            if (this == Binary) {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+                    TaskCodec.write(tasks, out);
+                }
+                return;
+            }
+            try (JsonWriter jw = new JsonWriter(FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), true)) {
+                jw.writeValue(tasks);
+            }
+        }
     }
-}
\ No newline at end of file
+}
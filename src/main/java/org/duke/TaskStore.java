@@ -0,0 +1,176 @@
+package org.duke;
+
+import org.duke.task.Task;
+import org.duke.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A persistent, ordered list of tasks, which can be changed.
+ *
+ * Each task added is given an id, which stays the same as other tasks come and go.
+ */
+public interface TaskStore extends TaskView, AutoCloseable {
+    /**
+     * System property choosing the store {@link #load()} opens:
+     * {@code file} for {@link TaskStorage} (the default), or {@code paged} for {@link PagedTaskStore}.
+     */
+    String BACKEND_PROPERTY = "duke.storage.backend";
+
+    /**
+     * Opens the saved tasks, with the store selected by the {@value #BACKEND_PROPERTY} system property.
+     *
+     * @return Loaded task store
+     */
+    static TaskStore load() {
+        String backend = System.getProperty(BACKEND_PROPERTY, "file");
+        switch (backend.toLowerCase()) {
+        case "file":
+            return TaskStorage.load();
+        case "paged":
+            return PagedTaskStore.open();
+        default:
+            throw new DukeException(String.format("Unknown storage backend %s", backend));
+        }
+    }
+
+    /**
+     * Appends a copy of a task to the end of the list, giving it a fresh id.
+     *
+     * @param t Task to add
+     * @return The task as added, with its id
+     */
+    Task add(Task t);
+
+    /**
+     * Removes the task at the given index, moving later tasks up.
+     *
+     * @param index Index of task
+     * @return The removed task
+     */
+    Task remove(int index);
+
+    /**
+     * Removes the tasks at the given indices, all at once.
+     *
+     * By default, this removes them one at a time, starting from the last.
+     *
+     * @param indices Indices of tasks, in ascending order without repeats
+     * @return The removed tasks, in list order
+     */
+    default List<Task> removeAll(int[] indices) {
+        Task[] removed = new Task[indices.length];
+        for (int i = indices.length - 1; i >= 0; i--) {
+            removed[i] = this.remove(indices[i]);
+        }
+        return Arrays.asList(removed);
+    }
+
+    /**
+     * Removes the tasks with the given ids, all at once.
+     * Every id is checked before any task is removed, so a missing one leaves the list untouched.
+     *
+     * By default, this finds the tasks in one pass over the list, then removes them by index,
+     * which only suits stores used from one thread.
+     *
+     * @param ids Ids of tasks, without repeats
+     * @return The removed tasks, in list order
+     */
+    default List<Task> removeByIds(long[] ids) {
+        return this.removeAll(this.indicesOf(ids));
+    }
+
+    /**
+     * Marks the task at the given index as completed.
+     *
+     * @param index Index of task
+     * @return The completed task
+     */
+    Task markComplete(int index);
+
+    /**
+     * Marks the tasks at the given indices as completed, all at once.
+     *
+     * By default, this marks them one at a time.
+     *
+     * @param indices Indices of tasks, in ascending order without repeats
+     * @return The completed tasks, in list order
+     */
+    default List<Task> markCompleteAll(int[] indices) {
+        List<Task> completed = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            completed.add(this.markComplete(index));
+        }
+        return completed;
+    }
+
+    /**
+     * Marks the tasks with the given ids as completed, all at once.
+     * Every id is checked before any task is changed, so a missing one leaves the list untouched.
+     *
+     * By default, this finds the tasks in one pass over the list, then marks them by index,
+     * which only suits stores used from one thread.
+     *
+     * @param ids Ids of tasks, without repeats
+     * @return The completed tasks, in list order
+     */
+    default List<Task> markCompleteByIds(long[] ids) {
+        return this.markCompleteAll(this.indicesOf(ids));
+    }
+
+    /**
+     * Finds the indices of the tasks with the given ids, in one pass over the list.
+     *
+     * @param ids Ids of tasks, without repeats
+     * @return Indices of tasks, in ascending order
+     */
+    private int[] indicesOf(long[] ids) {
+        LongIntHashMap wanted = new LongIntHashMap(ids.length);
+        for (long id : ids) {
+            wanted.put(id, 0);
+        }
+        int[] indices = new int[ids.length];
+        int found = 0;
+        Iterator<Task> tasks = this.stream().iterator();
+        for (int index = 0; tasks.hasNext() && found < ids.length; index++) {
+            if (wanted.containsKey(tasks.next().getId())) {
+                indices[found++] = index;
+            }
+        }
+        if (found < ids.length) {
+            throw new DukeException("There's no task with that id!");
+        }
+        return indices;
+    }
+
+    /**
+     * Makes sure all changes so far are persisted.
+     */
+    void save();
+
+    /**
+     * Persists all changes so far, and stops any background work.
+     * The store cannot be used afterwards.
+     *
+     * By default, this only saves.
+     */
+    @Override
+    default void close() {
+        this.save();
+    }
+
+    /**
+     * Returns the tasks as they are now, unaffected by later changes,
+     * so that a reader can look through them while other threads change the store.
+     *
+     * By default, this returns the store itself, which only suits stores used from one thread.
+     *
+     * @return Unchanging view of the tasks
+     */
+    default TaskView snapshot() {
+        return this;
+    }
+}
@@ -0,0 +1,74 @@
+package org.duke;
+
+import org.duke.task.Task;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An ordered list of tasks, which can be read but not changed through this view.
+ *
+ * Tasks are addressed by their index in the list, starting from 0.
+ */
+public interface TaskView {
+    Task get(int index);
+
+    /**
+     * Finds the current index of the task with the given id.
+     *
+     * By default, this checks every task in turn.
+     *
+     * @param id Id of task
+     * @return Index of task, or -1 if no task has that id
+     */
+    default int indexOf(long id) {
+        for (int i = 0; i < this.size(); i++) {
+            if (this.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int size();
+
+    Stream<Task> stream();
+
+    /**
+     * Streams the tasks from one index up til another, without going through the tasks before them.
+     *
+     * By default, this gets each task by its index.
+     *
+     * @param from Index of first task
+     * @param to   Index after last task
+     * @return Tasks in the range, in list order
+     */
+    default Stream<Task> stream(int from, int to) {
+        if (from < 0 || to > this.size() || from > to) {
+            throw new IndexOutOfBoundsException(String.format("Range %d-%d out of bounds for length %d",
+                    from, to, this.size()));
+        }
+        return IntStream.range(from, to).mapToObj(this::get);
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain every word of the query, ignoring case.
+     *
+     * By default, this checks every task in turn.
+     *
+     * @param query Words to search for
+     * @return Indices of matching tasks, in ascending order
+     */
+    default IntStream find(String query) {
+        String[] terms = query.toLowerCase().trim().split("\\s+");
+        return IntStream.range(0, this.size()).filter(i -> {
+            String description = this.get(i).getDescription().toLowerCase();
+            for (String term : terms) {
+                if (!description.contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
@@ -1,24 +1,38 @@
 package org.duke.cmd;
 
+import java.util.AbstractMap;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * Represents parsed user input, divided into a command type and arguments.
+ *
+ * A command is a view over the input string, holding only the offsets of each part.
+ * Parts are only copied out of the input when asked for.
  */
 public class Command {
-    private static final Pattern switchBoundary = Pattern.compile("\\s+/");
-    private static final Pattern cmdBoundary = Pattern.compile("\\s+");
-    private final String type;
-    private final String arguments;
-    private final Map<String, String> namedArguments;
-
-    private Command(String type, String arguments, Map<String, String> namedArguments) {
-        this.type = type;
-        this.arguments = arguments;
-        this.namedArguments = namedArguments;
+    private final String input;
+    private final int typeStart;
+    private final int typeEnd;
+    private final int argumentsStart;
+    private final int argumentsEnd;
+    private final int switchesStart;
+    private final int end;
+    private String type;
+    private String arguments;
+    private NamedArguments namedArguments;
+
+    private Command(String input, int typeStart, int typeEnd, int argumentsStart, int argumentsEnd,
+                    int switchesStart, int end) {
+        this.input = input;
+        this.typeStart = typeStart;
+        this.typeEnd = typeEnd;
+        this.argumentsStart = argumentsStart;
+        this.argumentsEnd = argumentsEnd;
+        this.switchesStart = switchesStart;
+        this.end = end;
     }
 
     /**
@@ -28,56 +42,213 @@ public class Command {
      * The main arguments are the remainder of words,
      * up til the first named argument or end of string.
      *
-     * Each named argument starts with a switch "/(name)".
+     * Each named argument starts with a switch "/(name)", preceded by whitespace.
      * The argument spans up til the next named argument or end of string.
+     * If a name is repeated, the last argument given for it is kept.
      *
      * @param input User input
      * @return Parsed command, or null if invalid
      */
     public static Command parse(String input) {
-        input = input.trim();
-
-        //Split on the presence of any switches
-        String[] splits = switchBoundary.split(input);
-
-        //First split value is "cmd-type args..."
-        String[] mainArgs = cmdBoundary.split(splits[0], 2);
-        if (mainArgs[0].isEmpty()) {
+        //Trim the same characters String.trim() does.
+        int start = 0;
+        int end = input.length();
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
             return null;
         }
 
-        String type = mainArgs[0];
-        //If no arguments, leave as empty string
-        String arguments = mainArgs.length > 1 ? mainArgs[1] : "";
-        Map<String, String> namedArguments = new HashMap<>();
+        //The input never starts with whitespace, so the type is never empty.
+        int typeEnd = start;
+        while (typeEnd < end && !isWhitespace(input.charAt(typeEnd))) {
+            typeEnd++;
+        }
 
-        if (splits.length > 1) {
-            //Each split value is "switch-name args..."
-            //with no preceding slash
-            for (int i = 1; i < splits.length; i++) {
-                if (splits[i].isEmpty()) {
-                    continue;
-                }
-                //Split at first whitespace
-                String[] switchArgs = cmdBoundary.split(splits[i], 2);
-                String switchName = switchArgs[0];
-                //If no arguments, leave as empty string
-                String switchArguments = switchArgs.length > 1 ? switchArgs[1] : "";
-                namedArguments.put(switchName, switchArguments);
+        //Arguments start after the whitespace following the type,
+        //and end at the first switch.
+        int argumentsStart = typeEnd;
+        int argumentsEnd = typeEnd;
+        int switchesStart = end;
+        int i = typeEnd;
+        while (i < end) {
+            int runEnd = skipWhitespace(input, i, end);
+            if (runEnd < end && input.charAt(runEnd) == '/') {
+                switchesStart = i;
+                break;
             }
+            if (i == typeEnd) {
+                argumentsStart = runEnd;
+            }
+            i = skipNonWhitespace(input, runEnd, end);
+            argumentsEnd = i;
+        }
+        return new Command(input, start, typeEnd, argumentsStart, argumentsEnd, switchesStart, end);
+    }
+
+    /**
+     * Checks for the characters matched by the regular expression {@code \s}.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int skipWhitespace(String s, int i, int end) {
+        while (i < end && isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipNonWhitespace(String s, int i, int end) {
+        while (i < end && !isWhitespace(s.charAt(i))) {
+            i++;
         }
-        return new Command(type, arguments, Collections.unmodifiableMap(namedArguments));
+        return i;
     }
 
     public String getType() {
-        return type;
+        if (this.type == null) {
+            this.type = this.input.substring(this.typeStart, this.typeEnd);
+        }
+        return this.type;
     }
 
     public String getArguments() {
-        return arguments;
+        if (this.arguments == null) {
+            this.arguments = this.input.substring(this.argumentsStart, this.argumentsEnd);
+        }
+        return this.arguments;
     }
 
     public Map<String, String> getNamedArguments() {
-        return namedArguments;
+        if (this.namedArguments == null) {
+            this.namedArguments = new NamedArguments();
+        }
+        return this.namedArguments;
+    }
+
+    /**
+     * Steps through the switches of a command, in input order.
+     */
+    private class SwitchCursor {
+        private int pos = Command.this.switchesStart;
+        private int nameStart;
+        private int nameEnd;
+        private int valueStart;
+        private int valueEnd;
+
+        /**
+         * Moves to the next switch.
+         *
+         * @return Whether there was another switch
+         */
+        private boolean next() {
+            String s = Command.this.input;
+            int end = Command.this.end;
+            while (this.pos < end) {
+                //Skip the whitespace and slash starting this switch.
+                int segmentStart = skipWhitespace(s, this.pos, end) + 1;
+                int segmentEnd = segmentStart;
+                int nextSwitch = end;
+                int i = segmentStart;
+                while (i < end) {
+                    int runEnd = skipWhitespace(s, i, end);
+                    if (runEnd > i && runEnd < end && s.charAt(runEnd) == '/') {
+                        nextSwitch = i;
+                        break;
+                    }
+                    i = skipNonWhitespace(s, runEnd, end);
+                    segmentEnd = i;
+                }
+                this.pos = nextSwitch;
+                if (segmentEnd == segmentStart) {
+                    continue;
+                }
+                //A switch directly followed by whitespace has an empty name.
+                this.nameStart = segmentStart;
+                this.nameEnd = skipNonWhitespace(s, segmentStart, segmentEnd);
+                this.valueStart = skipWhitespace(s, this.nameEnd, segmentEnd);
+                this.valueEnd = segmentEnd;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean nameEquals(String name) {
+            int length = this.nameEnd - this.nameStart;
+            return name.length() == length
+                    && Command.this.input.regionMatches(this.nameStart, name, 0, length);
+        }
+
+        private String name() {
+            return Command.this.input.substring(this.nameStart, this.nameEnd);
+        }
+
+        private String value() {
+            return Command.this.input.substring(this.valueStart, this.valueEnd);
+        }
+    }
+
+    /**
+     * Read-only map of switch names to their arguments.
+     *
+     * Lookups scan the input directly; the full map is only built if it is iterated.
+     */
+    private class NamedArguments extends AbstractMap<String, String> {
+        private Map<String, String> entries;
+
+        @Override
+        public String get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            SwitchCursor cursor = new SwitchCursor();
+            int valueStart = -1;
+            int valueEnd = -1;
+            while (cursor.next()) {
+                if (cursor.nameEquals((String) key)) {
+                    valueStart = cursor.valueStart;
+                    valueEnd = cursor.valueEnd;
+                }
+            }
+            return valueStart < 0 ? null : Command.this.input.substring(valueStart, valueEnd);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+            SwitchCursor cursor = new SwitchCursor();
+            while (cursor.next()) {
+                if (cursor.nameEquals((String) key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !new SwitchCursor().next();
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            if (this.entries == null) {
+                Map<String, String> entries = new HashMap<>();
+                SwitchCursor cursor = new SwitchCursor();
+                while (cursor.next()) {
+                    entries.put(cursor.name(), cursor.value());
+                }
+                this.entries = entries;
+            }
+            return Collections.unmodifiableMap(this.entries).entrySet();
+        }
     }
 }
@@ -2,19 +2,32 @@ package org.duke.cmd;
 
 import org.duke.Duke;
 import org.duke.DukeException;
+import org.duke.jfr.CommandDispatchedEvent;
+import org.duke.metrics.CommandMetrics;
 
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
+/**
+ * Hands each command to the handler bound to its type, timing every stage
+ * with the process-wide {@link CommandMetrics}.
+ * Each command is also recorded as a {@link CommandDispatchedEvent} while a flight recording is running.
+ */
 public class CommandDispatcher {
+    private static final String UNKNOWN_COMMAND = "(unknown)";
+
     private final Set<Handler> handlers
             = new TreeSet<>(Comparator.comparing(Handler::getPrimaryBinding));
     private final Map<String, Handler> commandMap
             = new HashMap<>();
+    //Timer for each bound handler, looked up once when bound.
+    private final Map<Handler, CommandMetrics.Timer> timers = new IdentityHashMap<>();
+    private final CommandMetrics metrics = CommandMetrics.getInstance();
     private Handler defaultHandler = null;
     private final Duke duke;
 
@@ -31,6 +44,7 @@ public class CommandDispatcher {
     public void bindCommand(String command, Handler handler) {
         this.commandMap.put(command, handler);
         this.handlers.add(handler);
+        this.timers.putIfAbsent(handler, this.metrics.getCommand(command));
     }
 
     /**
@@ -40,43 +54,81 @@ public class CommandDispatcher {
      */
     public void setUnknownCommandHandler(Handler handler) {
         this.defaultHandler = handler;
+        this.timers.put(handler, this.metrics.getCommand(UNKNOWN_COMMAND));
     }
 
     /**
      * Bind several command handlers at once.
      *
-     * This uses the {@link Handler.Binding} annotations on each class
+     * This uses the {@link Handler.Binding} annotations on each class,
+     * as read at build time into the handler's {@link HandlerInfo},
      * to autodiscover command types.
      * @param handlers Handlers to bind.
      */
     public final void bindCommands(Handler... handlers) {
         for (Handler handler : handlers) {
-            Handler.Binding[] binds = handler.getClass()
-                    .getAnnotationsByType(Handler.Binding.class);
             this.handlers.add(handler);
-            for (Handler.Binding bind : binds) {
-                this.commandMap.put(bind.value(), handler);
+            for (String bind : handler.getInfo().getBindings()) {
+                this.commandMap.put(bind, handler);
             }
+            this.timers.put(handler, this.metrics.getCommand(handler.getPrimaryBinding()));
         }
     }
 
     /**
-     * Start running the listen loop, and respond to commands.
+     * Parses a command, and runs the handler bound to its type.
+     *
+     * @param userInput Command line
+     * @return Whether Duke should exit
      */
     public boolean dispatchCommand(String userInput) {
+        CommandDispatchedEvent event = new CommandDispatchedEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean failed = true;
+        boolean shouldExit = false;
+        try {
+            shouldExit = this.parseAndHandle(userInput, start, event);
+            failed = false;
+            return shouldExit;
+        } finally {
+            this.metrics.getStage(CommandMetrics.Stage.Dispatch).record(System.nanoTime() - start, failed);
+            if (event.shouldCommit()) {
+                event.outcome = failed ? CommandDispatchedEvent.ERROR
+                        : shouldExit ? CommandDispatchedEvent.EXIT : CommandDispatchedEvent.OK;
+                event.commit();
+            }
+        }
+    }
+
+    private boolean parseAndHandle(String userInput, long start, CommandDispatchedEvent event) {
         Command command = Command.parse(userInput);
+        long parsed = System.nanoTime();
+        this.metrics.getStage(CommandMetrics.Stage.Parse).record(parsed - start, command == null);
         if (command == null) {
             throw new DukeException("Unable to parse command!");
         }
+        event.command = command.getType();
 
         Handler cmdHandler = commandMap.get(command.getType());
-        if (cmdHandler != null) {
-            return cmdHandler.handle(duke, command);
-        } else if (defaultHandler != null) {
-            return defaultHandler.handle(duke, command);
-        } else {
+        if (cmdHandler == null) {
+            cmdHandler = defaultHandler;
+        }
+        if (cmdHandler == null) {
             throw new DukeException(String.format("Unknown command %s.", command.getType()));
         }
+        event.handler = cmdHandler.getClass().getName();
+
+        boolean failed = true;
+        try {
+            boolean shouldExit = cmdHandler.handle(duke, command);
+            failed = false;
+            return shouldExit;
+        } finally {
+            long elapsed = System.nanoTime() - parsed;
+            this.timers.get(cmdHandler).record(elapsed, failed);
+            this.metrics.getStage(CommandMetrics.Stage.Handle).record(elapsed, failed);
+        }
     }
 
     /**
@@ -2,31 +2,41 @@ package org.duke.cmd;
 
 import org.duke.Duke;
 import org.duke.DukeException;
-import org.duke.TaskStorage;
+import org.duke.TaskStore;
 import org.duke.task.Task;
 
+import java.util.List;
+
 @Handler.Binding("delete")
-@Handler.Description(value = "Deletes a task", argument = "Index of task")
+@Handler.Description(value = "Deletes tasks", argument = "Indices, ranges or #ids of tasks")
+@Handler.NamedArgument(value = "completed", description = "Delete every completed task instead")
 public class DeleteHandler extends Handler {
     @Override
     protected void handleNoExit(Duke duke, Command command) {
-        int index;
-        try {
-            index = Integer.parseInt(command.getArguments());
-        } catch (NumberFormatException e) {
-            throw new DukeException("Index provided was not an integer!", e);
-        }
-
-        TaskStorage taskStorage = duke.getTaskStorage();
-        if (index < 0 || index > taskStorage.size()) {
-            throw new DukeException("There's no task with that index!");
+        TaskStore taskStorage = duke.getTaskStorage();
+        long[] ids;
+        if (command.getNamedArguments().containsKey("completed")) {
+            if (!command.getArguments().isEmpty()) {
+                throw new DukeException("Please give either tasks to delete, or /completed, but not both!");
+            }
+            ids = taskStorage.snapshot().stream()
+                    .filter(Task::isCompleted)
+                    .mapToLong(Task::getId)
+                    .toArray();
+            if (ids.length == 0) {
+                duke.getIo().say("There are no completed tasks to delete.");
+                return;
+            }
+        } else {
+            ids = TaskTarget.resolveAll(taskStorage.snapshot(), command.getArguments());
         }
 
-        Task selectedTask = taskStorage.remove(index - 1);
-        duke.getIo().say("Nice! I've marked this task as done:",
-                "  " + selectedTask,
-                String.format("Now you have %d task%s in the list.",
-                        taskStorage.size(),
-                        taskStorage.size() == 1 ? "" : "s"));
+        List<Task> selectedTasks = taskStorage.removeByIds(ids);
+        List<String> lines = TaskTarget.summarize("Noted. I've removed this task:",
+                "Noted. I've removed these %d tasks:", selectedTasks);
+        lines.add(String.format("Now you have %d task%s in the list.",
+                taskStorage.size(),
+                taskStorage.size() == 1 ? "" : "s"));
+        duke.getIo().say(lines.iterator());
     }
 }
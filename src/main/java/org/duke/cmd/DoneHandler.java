@@ -1,28 +1,21 @@
 package org.duke.cmd;
 
 import org.duke.Duke;
-import org.duke.DukeException;
+import org.duke.TaskStore;
 import org.duke.task.Task;
 
+import java.util.List;
+
 @Handler.Binding("done")
-@Handler.Description(value = "Marks a task as done.", argument = "Index of task to delete")
+@Handler.Description(value = "Marks tasks as done.", argument = "Indices, ranges or #ids of tasks")
 public class DoneHandler extends Handler {
     @Override
     public void handleNoExit(Duke duke, Command command) {
-        int index;
-        try {
-            index = Integer.parseInt(command.getArguments());
-        } catch (NumberFormatException e) {
-            throw new DukeException("Index provided was not an integer!", e);
-        }
-
-        if (index < 0 || index > duke.getTaskStorage().size()) {
-            throw new DukeException("There's no task with that index!");
-        }
+        TaskStore taskStorage = duke.getTaskStorage();
+        long[] ids = TaskTarget.resolveAll(taskStorage.snapshot(), command.getArguments());
 
-        Task selectedTask = duke.getTaskStorage().get(index - 1);
-        selectedTask.markComplete();
-        duke.getIo().say("Nice! I've marked this task as done:",
-                "  " + selectedTask);
+        List<Task> selectedTasks = taskStorage.markCompleteByIds(ids);
+        duke.getIo().say(TaskTarget.summarize("Nice! I've marked this task as done:",
+                "Nice! I've marked these %d tasks as done:", selectedTasks).iterator());
     }
 }
@@ -0,0 +1,36 @@
+package org.duke.cmd;
+
+import org.duke.Duke;
+import org.duke.DukeException;
+import org.duke.json.JsonWriter;
+import org.duke.task.Task;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+@Handler.Binding("export")
+@Handler.Description(value = "Exports all tasks as JSON", argument = "File to write")
+public class ExportHandler extends Handler {
+    @Override
+    protected void handleNoExit(Duke duke, Command command) {
+        String path = command.getArguments();
+        if (path.isEmpty()) {
+            throw new DukeException("Please give a file to export to!");
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            JsonWriter jw = new JsonWriter(channel, false);
+            Iterable<Task> tasks = () -> duke.getTaskStorage().stream().iterator();
+            jw.writeValue(tasks);
+            jw.flush();
+        } catch (Exception e) {
+            throw new DukeException("Unable to export tasks", e);
+        }
+        duke.getIo().say(String.format("Exported %d task%s to %s.",
+                duke.getTaskStorage().size(),
+                duke.getTaskStorage().size() == 1 ? "" : "s",
+                path));
+    }
+}
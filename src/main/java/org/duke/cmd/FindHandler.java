@@ -1,22 +1,19 @@
 package org.duke.cmd;
 
 import org.duke.Duke;
+import org.duke.TaskView;
 import org.duke.ui.DukeIO;
-import org.duke.util.CounterDecorator;
 
 @Handler.Binding("find")
-@Handler.Description(value = "Find tasks that match.", argument = "String to search for")
+@Handler.Description(value = "Find tasks containing all the given words.", argument = "Words to search for")
 public class FindHandler extends Handler {
     @Override
     protected void handleNoExit(Duke duke, Command command) {
         DukeIO io = duke.getIo();
         io.say("Here are the matching tasks in your list:");
-        String target = command.getArguments().toLowerCase();
-        io.say(duke.getTaskStorage().stream()
-                .map(new CounterDecorator<>(1))
-                .filter(taskpair ->
-                        taskpair.value.getDescription().toLowerCase().contains(target))
-                .map(Object::toString)
+        TaskView tasks = duke.getTaskStorage().snapshot();
+        io.say(tasks.find(command.getArguments())
+                .mapToObj(index -> TaskTarget.describe(index + 1, tasks.get(index)))
                 .iterator());
     }
 }
@@ -3,13 +3,17 @@ package org.duke.cmd;
 import org.duke.Duke;
 
 import java.lang.annotation.*;
-import java.util.HashMap;
-import java.util.Map;
 
 public abstract class Handler {
 
-    private static final Map<Class<? extends Handler>, String> descriptionCache = new HashMap<>();
-    private static final Map<Class<? extends Handler>, String> syntaxCache = new HashMap<>();
+    //Details of each handler class, from the registry generated at build time where possible.
+    private static final ClassValue<HandlerInfo> infos = new ClassValue<>() {
+        @Override
+        protected HandlerInfo computeValue(Class<?> type) {
+            HandlerInfo info = HandlerRegistry.get(type);
+            return info != null ? info : HandlerInfo.read(type);
+        }
+    };
 
     public boolean handle(Duke duke, Command command) {
         handleNoExit(duke, command);
@@ -19,55 +23,25 @@ public abstract class Handler {
     protected void handleNoExit(Duke duke, Command command) {
     }
 
+    /**
+     * Returns what this handler's annotations say about it.
+     *
+     * @return Handler details, shared by every handler of this class
+     */
+    public final HandlerInfo getInfo() {
+        return infos.get(this.getClass());
+    }
+
     public final String getDescriptionLine() {
-        return descriptionCache.computeIfAbsent(this.getClass(),
-                clazz -> {
-                    StringBuilder firstLine = new StringBuilder();
-                    for (Binding bind : this.getBindings()) {
-                        firstLine.append(bind.value()).append(' ');
-                    }
-                    firstLine.append("- ").append(this.getDescriptionText().value());
-                    return firstLine.toString();
-                }
-                );
+        return this.getInfo().getDescriptionLine();
     }
 
     public final String getSyntaxLine() {
-        return syntaxCache.computeIfAbsent(this.getClass(),
-                clazz -> {
-                    String primaryBind = this.getPrimaryBinding();
-                    StringBuilder secondLine = new StringBuilder(primaryBind);
-
-                    String argumentDesc = this.getDescriptionText().argument();
-                    if (!argumentDesc.isEmpty()) {
-                        secondLine.append(" <").append(argumentDesc).append('>');
-                    }
-
-                    for (NamedArgument arg : this.getNamedArguments()) {
-                        secondLine.append(" [ /")
-                                .append(arg.value())
-                                .append(" (")
-                                .append(arg.description())
-                                .append(") ]");
-                    }
-                    return secondLine.toString();
-                });
+        return this.getInfo().getSyntaxLine();
     }
 
     public final String getPrimaryBinding() {
-        return this.getBindings()[0].value();
-    }
-
-    public Binding[] getBindings() {
-        return this.getClass().getAnnotationsByType(Binding.class);
-    }
-
-    public Description getDescriptionText()  {
-        return this.getClass().getAnnotation(Description.class);
-    }
-
-    public NamedArgument[] getNamedArguments() {
-        return this.getClass().getAnnotationsByType(NamedArgument.class);
+        return this.getInfo().getPrimaryBinding();
     }
 
     @Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,146 @@
+package org.duke.cmd;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a handler's annotations say about it: the command types it is bound to,
+ * the arguments it takes, and the help lines describing it.
+ *
+ * Handlers compiled with Duke have theirs generated at build time, into {@code HandlerRegistry}.
+ * Others, such as anonymous handlers, have theirs read from their annotations on first use.
+ */
+public final class HandlerInfo {
+    private final List<String> bindings;
+    private final String description;
+    private final String argument;
+    private final boolean optional;
+    private final List<Argument> namedArguments;
+    private final String descriptionLine;
+    private final String syntaxLine;
+
+    HandlerInfo(String[] bindings, String description, String argument, boolean optional,
+                Argument[] namedArguments, String descriptionLine, String syntaxLine) {
+        this.bindings = Collections.unmodifiableList(Arrays.asList(bindings));
+        this.description = description;
+        this.argument = argument;
+        this.optional = optional;
+        this.namedArguments = Collections.unmodifiableList(Arrays.asList(namedArguments));
+        this.descriptionLine = descriptionLine;
+        this.syntaxLine = syntaxLine;
+    }
+
+    /**
+     * Reads a handler's annotations, for handlers missing from the generated registry.
+     *
+     * @param type Handler class
+     * @return Handler details
+     */
+    static HandlerInfo read(Class<?> type) {
+        Handler.Binding[] binds = type.getAnnotationsByType(Handler.Binding.class);
+        Handler.Description description = type.getAnnotation(Handler.Description.class);
+        Handler.NamedArgument[] args = type.getAnnotationsByType(Handler.NamedArgument.class);
+
+        String[] bindings = new String[binds.length];
+        for (int i = 0; i < binds.length; i++) {
+            bindings[i] = binds[i].value();
+        }
+        Argument[] namedArguments = new Argument[args.length];
+        for (int i = 0; i < args.length; i++) {
+            namedArguments[i] = new Argument(args[i].value(), args[i].description());
+        }
+        if (bindings.length == 0 || description == null) {
+            //Handlers with no bindings are only ever run as the fallback, and never shown in help.
+            return new HandlerInfo(bindings, "", "", false, namedArguments, "", "");
+        }
+
+        StringBuilder descriptionLine = new StringBuilder();
+        for (String bind : bindings) {
+            descriptionLine.append(bind).append(' ');
+        }
+        descriptionLine.append("- ").append(description.value());
+
+        StringBuilder syntaxLine = new StringBuilder(bindings[0]);
+        if (!description.argument().isEmpty()) {
+            syntaxLine.append(" <").append(description.argument()).append('>');
+        }
+        for (Argument arg : namedArguments) {
+            syntaxLine.append(" [ /")
+                    .append(arg.getName())
+                    .append(" (")
+                    .append(arg.getDescription())
+                    .append(") ]");
+        }
+        return new HandlerInfo(bindings, description.value(), description.argument(), description.optional(),
+                namedArguments, descriptionLine.toString(), syntaxLine.toString());
+    }
+
+    /**
+     * Returns the command types this handler is bound to, the first being its primary binding.
+     *
+     * @return Command types
+     */
+    public List<String> getBindings() {
+        return this.bindings;
+    }
+
+    /**
+     * Returns the command type this handler is listed under.
+     *
+     * @return Primary command type, or null for an unbound handler
+     */
+    public String getPrimaryBinding() {
+        return this.bindings.isEmpty() ? null : this.bindings.get(0);
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    /**
+     * Returns a description of the command's main argument.
+     *
+     * @return Argument description, or an empty string if the command takes none
+     */
+    public String getArgument() {
+        return this.argument;
+    }
+
+    public boolean isArgumentOptional() {
+        return this.optional;
+    }
+
+    public List<Argument> getNamedArguments() {
+        return this.namedArguments;
+    }
+
+    public String getDescriptionLine() {
+        return this.descriptionLine;
+    }
+
+    public String getSyntaxLine() {
+        return this.syntaxLine;
+    }
+
+    /**
+     * A named argument a command takes, as in {@code /by}.
+     */
+    public static final class Argument {
+        private final String name;
+        private final String description;
+
+        Argument(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getDescription() {
+            return this.description;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.duke.cmd;
+
+import org.duke.Duke;
+import org.duke.DukeException;
+import org.duke.json.JsonException;
+import org.duke.json.JsonParser;
+import org.duke.json.ValueHandler;
+import org.duke.task.Task;
+import org.duke.task.TaskType;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+@Handler.Binding("import")
+@Handler.Description(value = "Adds all tasks from a JSON export", argument = "File to read")
+public class ImportHandler extends Handler {
+    @Override
+    protected void handleNoExit(Duke duke, Command command) {
+        String path = command.getArguments();
+        if (path.isEmpty()) {
+            throw new DukeException("Please give a file to import from!");
+        }
+
+        ArrayList<Task> tasks;
+        try (FileReader read = new FileReader(path, StandardCharsets.UTF_8)) {
+            tasks = JsonParser.parse(read, ValueHandler.listOf(new TaskType.Builder()));
+        } catch (IOException | JsonException e) {
+            throw new DukeException("Unable to import tasks", e);
+        }
+        for (Task task : tasks) {
+            duke.getTaskStorage().add(task);
+        }
+        duke.getIo().say(String.format("Imported %d task%s. Now you have %d task%s in the list.",
+                tasks.size(),
+                tasks.size() == 1 ? "" : "s",
+                duke.getTaskStorage().size(),
+                duke.getTaskStorage().size() == 1 ? "" : "s"));
+    }
+}
@@ -1,19 +1,104 @@
 package org.duke.cmd;
 
 import org.duke.Duke;
+import org.duke.DukeException;
+import org.duke.TaskView;
+import org.duke.task.Task;
 import org.duke.ui.DukeIO;
 import org.duke.util.CounterDecorator;
 
+import java.util.Map;
+
 @Handler.Binding("list")
 @Handler.Description("Lists all tasks")
+@Handler.NamedArgument(value = "page", description = "Page to show, from 1")
+@Handler.NamedArgument(value = "size", description = "Tasks per page")
+@Handler.NamedArgument(value = "after", description = "Index or #id of task to continue after")
+@Handler.NamedArgument(value = "count", description = "Only count the tasks")
 public class ListHandler extends Handler {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     @Override
     protected void handleNoExit(Duke duke, Command command) {
         DukeIO io = duke.getIo();
-        io.say("Here are the tasks in your list:");
-        io.say(duke.getTaskStorage().stream()
-                .map(new CounterDecorator<>(1))
-                .map(Object::toString)
+        //Every part of the reply comes from one version of the list, whatever else changes it meanwhile.
+        TaskView tasks = duke.getTaskStorage().snapshot();
+        Map<String, String> named = command.getNamedArguments();
+        int total = tasks.size();
+
+        if (named.containsKey("count")) {
+            long completed = tasks.stream().filter(Task::isCompleted).count();
+            io.say(String.format("You have %d task%s in your list: %d done, %d not done.",
+                    total, total == 1 ? "" : "s", completed, total - completed));
+            return;
+        }
+
+        String page = named.get("page");
+        String size = named.get("size");
+        String after = named.get("after");
+        if (page == null && size == null && after == null) {
+            io.say("Here are the tasks in your list:");
+            io.say(tasks.stream()
+                    .map(new CounterDecorator<>(1))
+                    .map(pair -> TaskTarget.describe(pair.count, pair.value))
+                    .iterator());
+            return;
+        }
+        if (page != null && after != null) {
+            throw new DukeException("Please give either /page or /after, but not both!");
+        }
+
+        //Only the tasks on the page are ever looked at, let alone formatted.
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : parsePositive(size, "page size");
+        int from;
+        if (after != null) {
+            from = TaskTarget.resolve(tasks, after) + 1;
+        } else {
+            int pageNumber = page == null ? 1 : parsePositive(page, "page");
+            from = (int) Math.min((long) (pageNumber - 1) * pageSize, total);
+            if (from == total && total > 0) {
+                throw new DukeException(String.format("There's no page %d; the list has %d page%s.",
+                        pageNumber, pageCount(total, pageSize), pageCount(total, pageSize) == 1 ? "" : "s"));
+            }
+        }
+        int to = (int) Math.min((long) from + pageSize, total);
+        if (from == to) {
+            io.say("There are no more tasks in your list.");
+            return;
+        }
+
+        io.say(String.format("Here are tasks %d-%d of %d in your list:", from + 1, to, total));
+        io.say(tasks.stream(from, to)
+                .map(new CounterDecorator<>(from + 1))
+                .map(pair -> TaskTarget.describe(pair.count, pair.value))
                 .iterator());
+        if (to == total) {
+            return;
+        }
+        if (after != null) {
+            io.say(String.format("For more, enter: list /after #%d /size %d",
+                    tasks.get(to - 1).getId(), pageSize));
+        } else {
+            int pageNumber = from / pageSize + 1;
+            io.say(String.format("Page %d of %d. For the next page, enter: list /page %d /size %d",
+                    pageNumber, pageCount(total, pageSize), pageNumber + 1, pageSize));
+        }
+    }
+
+    private static int pageCount(int total, int pageSize) {
+        return (int) (((long) total + pageSize - 1) / pageSize);
+    }
+
+    private static int parsePositive(String value, String name) {
+        int number;
+        try {
+            number = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new DukeException(String.format("The %s provided was not an integer!", name), e);
+        }
+        if (number < 1) {
+            throw new DukeException(String.format("The %s must be at least 1!", name));
+        }
+        return number;
     }
 }
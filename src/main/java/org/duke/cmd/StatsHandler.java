@@ -0,0 +1,44 @@
+package org.duke.cmd;
+
+import org.duke.Duke;
+import org.duke.metrics.CommandMetrics;
+import org.duke.metrics.LatencySummary;
+import org.duke.ui.DukeIO;
+
+import java.util.Map;
+
+@Handler.Binding("stats")
+@Handler.Description("Shows how many times each command ran, and how long it took")
+@Handler.NamedArgument(value = "reset", description = "Start counting afresh")
+public class StatsHandler extends Handler {
+    private static final String ROW_FORMAT = "  %-10s %8s %7s %9s %9s %9s";
+
+    @Override
+    protected void handleNoExit(Duke duke, Command command) {
+        DukeIO io = duke.getIo();
+        CommandMetrics metrics = CommandMetrics.getInstance();
+        if (command.getNamedArguments().containsKey("reset")) {
+            metrics.reset();
+            io.say("Noted. I've started counting afresh.");
+            return;
+        }
+
+        io.say("Here is how long commands have taken, in milliseconds:");
+        io.say(String.format(ROW_FORMAT, "command", "runs", "errors", "p50", "p99", "max"));
+        sayRows(io, metrics.getCommands());
+        io.say("And each stage of handling them:");
+        sayRows(io, metrics.getStages());
+    }
+
+    private static void sayRows(DukeIO io, Map<String, LatencySummary> summaries) {
+        summaries.forEach((name, summary) -> {
+            if (summary.getCount() == 0) {
+                return;
+            }
+            io.say(String.format(ROW_FORMAT, name.toLowerCase(), summary.getCount(), summary.getErrors(),
+                    String.format("%.3f", summary.getP50Millis()),
+                    String.format("%.3f", summary.getP99Millis()),
+                    String.format("%.3f", summary.getMaxMillis())));
+        });
+    }
+}
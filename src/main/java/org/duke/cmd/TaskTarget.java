@@ -0,0 +1,152 @@
+package org.duke.cmd;
+
+import org.duke.DukeException;
+import org.duke.TaskView;
+import org.duke.task.Task;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Helpers for commands that pick out tasks, either by their number in the list or by their id.
+ *
+ * A plain number, as in {@code 3}, is the task's position in the list, counting from 1.
+ * A number after a hash, as in {@code #17}, is the task's id, which stays the same as other tasks are removed.
+ * Several targets can be given at once, separated by commas, and a range of numbers as in {@code 5-900}.
+ */
+final class TaskTarget {
+    private static final String ID_PREFIX = "#";
+    private static final String SEPARATOR = ",";
+    private static final char RANGE = '-';
+    //Most tasks a summary of a bulk change lists before eliding the rest.
+    private static final int SUMMARY_TASKS = 5;
+
+    private TaskTarget() {
+    }
+
+    /**
+     * Finds the task the given argument refers to.
+     *
+     * @param store    Tasks to look in
+     * @param argument Task number, or task id after a hash
+     * @return Index of task in the store, from 0
+     */
+    static int resolve(TaskView store, String argument) {
+        String target = argument.trim();
+        if (target.startsWith(ID_PREFIX)) {
+            int index = store.indexOf(parseId(target));
+            if (index < 0) {
+                throw new DukeException("There's no task with that id!");
+            }
+            return index;
+        }
+        return resolveNumber(store, target);
+    }
+
+    /**
+     * Reads the id out of a target starting with a hash.
+     */
+    private static long parseId(String target) {
+        try {
+            return Long.parseLong(target.substring(ID_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new DukeException("Id provided was not an integer!", e);
+        }
+    }
+
+    /**
+     * Finds the task at the given number in the list.
+     *
+     * @return Index of task in the store, from 0
+     */
+    private static int resolveNumber(TaskView store, String target) {
+        int number;
+        try {
+            number = Integer.parseInt(target.trim());
+        } catch (NumberFormatException e) {
+            throw new DukeException("Index provided was not an integer!", e);
+        }
+        if (number < 1 || number > store.size()) {
+            throw new DukeException("There's no task with that index!");
+        }
+        return number - 1;
+    }
+
+    /**
+     * Finds every task the given arguments refer to, by id.
+     * Every target is checked before any is returned, so a bad one leaves the list untouched.
+     *
+     * Task numbers are read from the given tasks, which should be a snapshot, so that they all count
+     * from the same version of the list. Changes are then made by id, as other changes can come between.
+     * Task ids are passed on as given, as looking them up here would mean indexing the whole list;
+     * the change made with them reports any that are missing.
+     *
+     * @param store     Tasks to look in
+     * @param arguments Comma-separated targets, each a task number, a range of them, or a task id
+     * @return Ids of tasks, in ascending order without repeats
+     */
+    static long[] resolveAll(TaskView store, String arguments) {
+        BitSet indices = new BitSet(store.size());
+        LongStream.Builder ids = LongStream.builder();
+        for (String target : arguments.split(SEPARATOR)) {
+            target = target.trim();
+            if (target.isEmpty()) {
+                throw new DukeException("Please give the number or #id of each task, separated by commas!");
+            }
+            if (target.startsWith(ID_PREFIX)) {
+                ids.add(parseId(target));
+                continue;
+            }
+            int dash = target.indexOf(RANGE, 1);
+            if (dash < 0) {
+                indices.set(resolveNumber(store, target));
+                continue;
+            }
+            int first = resolveNumber(store, target.substring(0, dash));
+            int last = resolveNumber(store, target.substring(dash + 1));
+            if (last < first) {
+                throw new DukeException(String.format("The range %s runs backwards!", target));
+            }
+            indices.set(first, last + 1);
+        }
+        LongStream numbered = indices.stream().mapToLong(index -> store.get(index).getId());
+        return LongStream.concat(numbered, ids.build()).sorted().distinct().toArray();
+    }
+
+    /**
+     * Formats the reply to a change made to several tasks.
+     * A single task is shown as is, and a longer list is cut short.
+     *
+     * @param single  First line when one task changed
+     * @param several First line when several tasks changed, given their number
+     * @param tasks   Changed tasks
+     * @return Lines of reply
+     */
+    static List<String> summarize(String single, String several, List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        lines.add(tasks.size() == 1 ? single : String.format(several, tasks.size()));
+        for (int i = 0; i < tasks.size() && i < SUMMARY_TASKS; i++) {
+            lines.add("  " + tasks.get(i));
+        }
+        if (tasks.size() > SUMMARY_TASKS) {
+            lines.add(String.format("  ...and %d more.", tasks.size() - SUMMARY_TASKS));
+        }
+        return lines;
+    }
+
+    /**
+     * Formats a task as a line of a listing, with its number and its id.
+     *
+     * @param number Number of task in the list, from 1
+     * @param task   Task to describe
+     * @return Listing line
+     */
+    static String describe(int number, Task task) {
+        if (task.getId() == 0) {
+            return number + ": " + task;
+        }
+        return number + ": " + task + " " + ID_PREFIX + task.getId();
+    }
+}
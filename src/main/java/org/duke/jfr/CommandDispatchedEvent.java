@@ -0,0 +1,34 @@
+package org.duke.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one command, from receiving its line til its handler returns.
+ */
+@Name("org.duke.CommandDispatched")
+@Label("Command Dispatched")
+@Category({"Duke", "Commands"})
+@Description("A command was parsed and handled")
+@StackTrace(false)
+public class CommandDispatchedEvent extends Event {
+    public static final String OK = "ok";
+    public static final String EXIT = "exit";
+    public static final String ERROR = "error";
+
+    @Label("Command")
+    @Description("Type of command, or null if it could not be parsed")
+    public String command;
+
+    @Label("Handler")
+    @Description("Class of the handler run, or null if none was found")
+    public String handler;
+
+    @Label("Outcome")
+    @Description("ok, exit if the command ended the session, or error")
+    public String outcome;
+}
@@ -0,0 +1,37 @@
+package org.duke.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for parsing a date, telling which format matched after how many others.
+ */
+@Name("org.duke.DateParsed")
+@Label("Date Parsed")
+@Category({"Duke", "Parsing"})
+@Description("A date and time was parsed from user input")
+@StackTrace(false)
+public class DateParsedEvent extends Event {
+    @Label("Input")
+    public String input;
+
+    @Label("Cached")
+    @Description("Whether the result was taken from the cache of recent parses")
+    public boolean cached;
+
+    @Label("Matched")
+    @Description("Whether the input was understood as a date")
+    public boolean matched;
+
+    @Label("Formatter")
+    @Description("Date formatter which matched, or null")
+    public String formatter;
+
+    @Label("Fallbacks")
+    @Description("Number of formatters tried before one matched, or tried in all if none did")
+    public int fallbacks;
+}
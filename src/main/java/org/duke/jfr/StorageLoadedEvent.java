@@ -0,0 +1,30 @@
+package org.duke.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for loading the saved tasks, including replaying their journal.
+ */
+@Name("org.duke.StorageLoaded")
+@Label("Storage Loaded")
+@Category({"Duke", "Storage"})
+@Description("Saved tasks were loaded")
+@StackTrace(false)
+public class StorageLoadedEvent extends Event {
+    @Label("Format")
+    public String format;
+
+    @Label("Task Count")
+    public int taskCount;
+
+    @Label("Bytes")
+    @Description("Size of the snapshot and journal read")
+    @DataAmount
+    public long bytes;
+}
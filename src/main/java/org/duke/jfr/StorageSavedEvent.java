@@ -0,0 +1,41 @@
+package org.duke.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for writing out tasks, either as a whole snapshot or as journal records.
+ */
+@Name("org.duke.StorageSaved")
+@Label("Storage Saved")
+@Category({"Duke", "Storage"})
+@Description("Tasks were written out")
+@StackTrace(false)
+public class StorageSavedEvent extends Event {
+    public static final String SNAPSHOT = "snapshot";
+    public static final String JOURNAL = "journal";
+
+    @Label("Kind")
+    @Description("snapshot for the whole list, or journal for the changes since the last flush")
+    public String kind;
+
+    @Label("Format")
+    public String format;
+
+    @Label("Task Count")
+    @Description("Number of tasks in the list")
+    public int taskCount;
+
+    @Label("Records")
+    @Description("Number of journal records written, if a journal was flushed")
+    public int records;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -25,6 +25,7 @@ public interface ArrayHandler<T> {
 
     /**
      * Handle one new JSON value in the JSON array.
+     * If the value is not read through the {@param receiver}, it is skipped without being decoded.
      *
      * @param receiver {@link ValueHandler} callback
      */
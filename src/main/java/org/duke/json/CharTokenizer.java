@@ -0,0 +1,233 @@
+package org.duke.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * {@link JsonTokenizer} scanning a window of characters read off a {@link Reader}.
+ *
+ * The window is refilled in large blocks, and only grows when a single token does not fit in it.
+ */
+final class CharTokenizer extends JsonTokenizer {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;
+    private final StringBuilder scratch = new StringBuilder();
+    private char[] buf = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+    private boolean eof = false;
+
+    //Start of window contents that must survive a refill, or -1 if none.
+    private int mark = -1;
+    private int valueStart;
+    private int valueEnd;
+    private boolean valueEscaped;
+
+    CharTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads more input into the window, discarding consumed characters before the mark.
+     *
+     * @return Whether any more characters were read.
+     */
+    private boolean fill() {
+        if (this.eof) {
+            return false;
+        }
+        int keep = this.mark >= 0 ? this.mark : this.pos;
+        if (keep > 0) {
+            System.arraycopy(this.buf, keep, this.buf, 0, this.limit - keep);
+            this.limit -= keep;
+            this.pos -= keep;
+            if (this.mark >= 0) {
+                this.mark -= keep;
+                this.valueStart -= keep;
+                this.valueEnd -= keep;
+            }
+        }
+        if (this.limit == this.buf.length) {
+            this.buf = Arrays.copyOf(this.buf, this.buf.length * 2);
+        }
+        try {
+            int read = this.reader.read(this.buf, this.limit, this.buf.length - this.limit);
+            if (read == -1) {
+                this.eof = true;
+                return false;
+            }
+            this.limit += read;
+            return true;
+        } catch (IOException e) {
+            throw new JsonException("Unexpected IO error", e);
+        }
+    }
+
+    private void require(int count) {
+        while (this.limit - this.pos < count) {
+            if (!this.fill()) {
+                throw new JsonException("Unexpected end of input");
+            }
+        }
+    }
+
+    @Override
+    public Token peek() {
+        while (true) {
+            while (this.pos < this.limit) {
+                char c = this.buf[this.pos];
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    return classify(c);
+                }
+                this.pos++;
+            }
+            if (!this.fill()) {
+                return Token.End;
+            }
+        }
+    }
+
+    private static Token classify(char c) {
+        switch (c) {
+        case '{':
+            return Token.BeginObject;
+        case '}':
+            return Token.EndObject;
+        case '[':
+            return Token.BeginArray;
+        case ']':
+            return Token.EndArray;
+        case ',':
+            return Token.Comma;
+        case ':':
+            return Token.Colon;
+        case '"':
+            return Token.StringValue;
+        case 't':
+            return Token.True;
+        case 'f':
+            return Token.False;
+        case 'n':
+            return Token.Null;
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return Token.NumberValue;
+            }
+            throw new JsonException("Unknown character %c reading JSON value!", c);
+        }
+    }
+
+    @Override
+    public Token next() {
+        this.mark = -1;
+        Token token = this.peek();
+        switch (token) {
+        case StringValue:
+            this.pos++;
+            this.scanString();
+            break;
+        case NumberValue:
+            this.scanNumber();
+            break;
+        case True:
+            this.expectLiteral("true");
+            break;
+        case False:
+            this.expectLiteral("false");
+            break;
+        case Null:
+            this.expectLiteral("null");
+            break;
+        case End:
+            break;
+        default:
+            this.pos++;
+        }
+        return token;
+    }
+
+    private void scanString() {
+        this.mark = this.pos;
+        this.valueStart = this.pos;
+        this.valueEscaped = false;
+        while (true) {
+            //Scan in bulk up til the next quote or escape.
+            char[] b = this.buf;
+            int p = this.pos;
+            int l = this.limit;
+            while (p < l && b[p] != '"' && b[p] != '\\') {
+                p++;
+            }
+            this.pos = p;
+            if (p == l) {
+                if (!this.fill()) {
+                    throw new JsonException("Unexpected end of input");
+                }
+                continue;
+            }
+            if (b[p] == '"') {
+                this.valueEnd = p;
+                this.pos = p + 1;
+                return;
+            }
+            //Skip past the escape, so an escaped quote does not end the string.
+            this.valueEscaped = true;
+            this.require(2);
+            this.pos += 2;
+        }
+    }
+
+    private void scanNumber() {
+        this.mark = this.pos;
+        this.valueStart = this.pos;
+        while (true) {
+            while (this.pos < this.limit && isNumberChar(this.buf[this.pos])) {
+                this.pos++;
+            }
+            if (this.pos < this.limit || !this.fill()) {
+                break;
+            }
+        }
+        this.valueEnd = this.pos;
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+    }
+
+    private void expectLiteral(String literal) {
+        this.require(literal.length());
+        for (int i = 0; i < literal.length(); i++) {
+            char c = this.buf[this.pos + i];
+            if (c != literal.charAt(i)) {
+                throw new JsonException("Unexpected character %c, expected %c", c, literal.charAt(i));
+            }
+        }
+        this.pos += literal.length();
+    }
+
+    @Override
+    public String stringValue() {
+        if (!this.valueEscaped) {
+            return new String(this.buf, this.valueStart, this.valueEnd - this.valueStart);
+        }
+        return unescape(this.buf, this.valueStart, this.valueEnd, this.scratch);
+    }
+
+    @Override
+    protected int numberLength() {
+        return this.valueEnd - this.valueStart;
+    }
+
+    @Override
+    protected char numberChar(int index) {
+        return this.buf[this.valueStart + index];
+    }
+
+    @Override
+    protected String numberText() {
+        return new String(this.buf, this.valueStart, this.valueEnd - this.valueStart);
+    }
+}
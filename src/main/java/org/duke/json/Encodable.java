@@ -0,0 +1,13 @@
+package org.duke.json;
+
+/**
+ * A value which writes itself as JSON, without going through the {@link Registry}.
+ */
+public interface Encodable {
+    /**
+     * Writes this value as JSON.
+     *
+     * @param ctx Context to write the value to
+     */
+    void encode(JsonWriter.ValueContext ctx);
+}
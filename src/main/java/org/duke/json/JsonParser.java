@@ -1,18 +1,25 @@
 package org.duke.json;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.PushbackReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
- * This class reads JSON objects off a {@link Reader}.
+ * This class reads JSON objects off a {@link JsonTokenizer}.
  */
 public class JsonParser {
-    private final PushbackReader reader;
+    private static final int MIN_CHUNK_SIZE = 1 << 18;
 
-    private JsonParser(Reader reader) {
-        this.reader = new PushbackReader(new BufferedReader(reader));
+    private final JsonTokenizer tokenizer;
+
+    private JsonParser(JsonTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
     }
 
     /**
@@ -25,218 +32,399 @@ public class JsonParser {
      * @return Parsed value
      */
     public static <T> T parse(Reader r, ValueHandler<T> handler) {
-        JsonParser p = new JsonParser(r);
+        return parse(JsonTokenizer.of(r), handler);
+    }
+
+    /**
+     * Given UTF-8 encoded input in {@param buffer}, and a way to extract a value ({@param handler}),
+     * parse out a JSON value from the input.
+     *
+     * @param buffer  Input bytes, such as a memory-mapped file
+     * @param handler JSON Value handler
+     * @param <T>     Return type
+     * @return Parsed value
+     */
+    public static <T> T parse(ByteBuffer buffer, ValueHandler<T> handler) {
+        return parse(JsonTokenizer.of(buffer), handler);
+    }
+
+    /**
+     * Given a {@param tokenizer}, and a way to extract a value ({@param handler}),
+     * parse out the next JSON value from its input.
+     *
+     * @param tokenizer Input tokens
+     * @param handler   JSON Value handler
+     * @param <T>       Return type
+     * @return Parsed value
+     */
+    public static <T> T parse(JsonTokenizer tokenizer, ValueHandler<T> handler) {
+        JsonParser p = new JsonParser(tokenizer);
         return p.readValue(handler);
     }
 
-    private char next() {
+    /**
+     * Given UTF-8 encoded input in {@param buffer} holding a JSON array,
+     * parse out its elements in parallel on {@param pool}.
+     *
+     * A quick scan, tracking only nesting and strings, cuts the array into chunks at its top-level commas.
+     * Each chunk is then parsed on its own, and the elements of all chunks are joined in order.
+     * If the input is malformed, it is parsed again sequentially, so the error is the same as from
+     * {@link #parse(ByteBuffer, ValueHandler)}.
+     *
+     * @param buffer      Input bytes, such as a memory-mapped file
+     * @param elemHandler JSON Value handler for each element, which is used from several threads at once
+     * @param pool        Pool to parse chunks on
+     * @param <T>         Element type
+     * @return Parsed elements
+     */
+    public static <T> ArrayList<T> parseArray(ByteBuffer buffer, ValueHandler<T> elemHandler, ForkJoinPool pool) {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, buffer.remaining() / (pool.getParallelism() * 4));
+        boolean worthSplitting = pool.getParallelism() > 1 && buffer.remaining() >= 2 * chunkSize;
+        int[] cuts = worthSplitting ? splitArray(buffer, chunkSize) : null;
+        if (cuts == null) {
+            return parse(buffer, ValueHandler.listOf(elemHandler));
+        }
+
         try {
-            int c = this.reader.read();
-            if (c == -1) {
-                throw new JsonException("Unexpected end of input");
+            //Each task sets only its own chunk's slot.
+            ArrayList<List<T>> chunks = new ArrayList<>(Collections.nCopies(cuts.length - 1, null));
+            pool.invoke(new ChunkTask<>(buffer, cuts, chunks, elemHandler, 0, chunks.size()));
+            int size = 0;
+            for (List<T> chunk : chunks) {
+                size += chunk.size();
+            }
+            ArrayList<T> elements = new ArrayList<>(size);
+            for (List<T> chunk : chunks) {
+                elements.addAll(chunk);
             }
-            return (char) c;
-        } catch (IOException e) {
-            throw new JsonException("Unexpected IO error", e);
+            return elements;
+        } catch (JsonException e) {
+            return parse(buffer, ValueHandler.listOf(elemHandler));
         }
     }
 
-    private void unread(char c) {
-        try {
-            this.reader.unread(c);
-        } catch (IOException e) {
-            throw new JsonException("Unable to pushback character, this should not happen!", e);
+    /**
+     * Finds the top-level commas at which to cut a JSON array into chunks of about the given size.
+     *
+     * @return Positions of the opening bracket, each chosen comma, then the closing bracket,
+     *     or null if the input does not look like an array
+     */
+    private static int[] splitArray(ByteBuffer buffer, int chunkSize) {
+        int limit = buffer.limit();
+        int i = buffer.position();
+        while (i < limit && isWhitespace(buffer.get(i))) {
+            i++;
+        }
+        if (i == limit || buffer.get(i) != '[') {
+            return null;
+        }
+        int[] cuts = new int[16];
+        int cutCount = 0;
+        cuts[cutCount++] = i;
+        int nextCut = i + chunkSize;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        //Scan a block at a time, copied out of the buffer, as reading a mapped buffer byte by byte is slow.
+        ByteBuffer source = buffer.duplicate();
+        byte[] block = new byte[1 << 16];
+        for (int blockStart = i; blockStart < limit; blockStart += block.length) {
+            int blockLength = Math.min(block.length, limit - blockStart);
+            source.position(blockStart);
+            source.get(block, 0, blockLength);
+            for (int j = 0; j < blockLength; j++) {
+                byte c = block[j];
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                    continue;
+                }
+                switch (c) {
+                case '"':
+                    inString = true;
+                    break;
+                case '[':
+                case '{':
+                    depth++;
+                    break;
+                case ']':
+                case '}':
+                    if (--depth == 0) {
+                        cuts = append(cuts, cutCount++, blockStart + j);
+                        return Arrays.copyOf(cuts, cutCount);
+                    }
+                    break;
+                case ',':
+                    if (depth == 1 && blockStart + j >= nextCut) {
+                        cuts = append(cuts, cutCount++, blockStart + j);
+                        nextCut = blockStart + j + chunkSize;
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static int[] append(int[] values, int count, int value) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
         }
+        values[count] = value;
+        return values;
     }
 
-    private void eatWhitespace() {
+    /**
+     * Reads the comma-separated values making up one chunk of an array, until the end of input.
+     */
+    private <T> List<T> readChunk(ValueHandler<T> handler, boolean onlyChunk) {
+        List<T> values = new ArrayList<>();
+        if (onlyChunk && this.tokenizer.peek() == JsonTokenizer.Token.End) {
+            return values;
+        }
         while (true) {
-            char c = this.next();
-            if (!Character.isWhitespace(c)) {
-                this.unread(c);
-                break;
+            values.add(this.readValue(handler));
+            JsonTokenizer.Token token = this.tokenizer.next();
+            if (token == JsonTokenizer.Token.End) {
+                return values;
             }
+            if (token != JsonTokenizer.Token.Comma) {
+                throw new JsonException("Missing comma between elements");
+            }
+        }
+    }
+
+    /**
+     * Given a input {@param reader}, parse out consecutive JSON values until the end of input,
+     * passing each one to {@param sink} as soon as it is read.
+     *
+     * @param r       Input reader
+     * @param handler JSON Value handler, for each value
+     * @param sink    Consumer of parsed values
+     * @param <T>     Value type
+     */
+    public static <T> void parseAll(Reader r, ValueHandler<T> handler, Consumer<? super T> sink) {
+        JsonParser p = new JsonParser(JsonTokenizer.of(r));
+        while (p.tokenizer.peek() != JsonTokenizer.Token.End) {
+            sink.accept(p.readValue(handler));
         }
     }
 
     private <T> T readObjectFields(ObjectHandler<T> handler) {
+        ValueReceiver receiver = new ValueReceiver();
         CommaState commaState = CommaState.Empty;
         boolean reachedEnd = false;
         while (!reachedEnd) {
-            this.eatWhitespace();
-            char first = this.next();
-            switch (first) {
-            case '"':
+            JsonTokenizer.Token token = this.tokenizer.next();
+            switch (token) {
+            case StringValue:
                 if (commaState == CommaState.ReadElement) {
                     throw new JsonException("Missing comma between fields");
                 }
-                String fieldName = this.readString();
-                this.eatWhitespace();
-                this.expect(":");
-                this.eatWhitespace();
-                handler.handleField(fieldName, this::readValue);
-                this.eatWhitespace();
+                String fieldName = this.tokenizer.nameValue();
+                this.expect(JsonTokenizer.Token.Colon);
+                receiver.received = false;
+                handler.handleField(fieldName, receiver);
+                receiver.skipIfUnread();
 
                 commaState = CommaState.ReadElement;
                 break;
-            case ',':
+            case Comma:
                 if (commaState != CommaState.ReadElement) {
                     throw new JsonException("Extra commas in object");
                 }
                 commaState = CommaState.ReadComma;
                 break;
-            case '}':
+            case EndObject:
                 if (commaState == CommaState.ReadComma) {
                     throw new JsonException("Extra commas in object");
                 }
                 reachedEnd = true;
                 break;
+            case End:
+                throw new JsonException("Unexpected end of input");
             default:
-                throw new JsonException("Unknown character when reading object");
+                throw new JsonException("Unexpected %s when reading object", token);
             }
         }
         return handler.handleEnd();
     }
 
     private <T> T readArrayElems(ArrayHandler<T> handler) {
+        ValueReceiver receiver = new ValueReceiver();
         CommaState commaState = CommaState.Empty;
         boolean reachedEnd = false;
         while (!reachedEnd) {
-            this.eatWhitespace();
-            char first = this.next();
-            switch (first) {
-            case ',':
+            switch (this.tokenizer.peek()) {
+            case Comma:
+                this.tokenizer.next();
                 if (commaState != CommaState.ReadElement) {
                     throw new JsonException("Extra commas in array");
                 }
                 commaState = CommaState.ReadComma;
                 break;
-            case ']':
+            case EndArray:
+                this.tokenizer.next();
                 if (commaState == CommaState.ReadComma) {
                     throw new JsonException("Extra commas in array");
                 }
                 reachedEnd = true;
                 break;
+            case End:
+                throw new JsonException("Unexpected end of input");
             default:
-                this.unread(first);
-                handler.handleElement(this::readValue);
+                if (commaState == CommaState.ReadElement) {
+                    throw new JsonException("Missing comma between elements");
+                }
+                receiver.received = false;
+                handler.handleElement(receiver);
+                receiver.skipIfUnread();
                 commaState = CommaState.ReadElement;
             }
         }
         return handler.handleEnd();
     }
 
-    private void readEscape(StringBuilder sb) {
-        char c = this.next();
-        switch (c) {
-        case '\\':
-        case '\"':
-        case '/':
-            sb.append(c);
-            break;
-        case 'b':
-            sb.append('\b');
-            break;
-        case 'f':
-            sb.append('\f');
-            break;
-        case 'n':
-            sb.append('\n');
-            break;
-        case 'r':
-            sb.append('\r');
-            break;
-        case 't':
-            sb.append('\t');
-            break;
-        case 'u':
-            char[] code = new char[4];
-            for (int i = 0; i < 4; i++) {
-                code[i] = this.next();
-            }
-            String codeString = new String(code);
-            try {
-                int codePoint = Integer.parseInt(codeString, 16);
-                sb.append(Character.toChars(codePoint));
-            } catch (NumberFormatException e) {
-                throw new JsonException("Bad unicode escape %s", e, codeString);
-            }
-            break;
-        default:
-            throw new JsonException("Unknown escape %c", c);
+    private void expect(JsonTokenizer.Token expected) {
+        JsonTokenizer.Token token = this.tokenizer.next();
+        if (token != expected) {
+            throw new JsonException("Unexpected %s, expected %s", token, expected);
         }
     }
 
-    private String readString() {
-        StringBuilder sb = new StringBuilder();
-        while (true) {
-            char c = this.next();
-            if (c == '"') {
-                break;
-            }
-            if (c == '\\') {
-                this.readEscape(sb);
-            } else {
-                sb.append(c);
+    private <T> T readValue(ValueHandler<T> handler) {
+        JsonTokenizer.Token token = this.tokenizer.next();
+        switch (token) {
+        case BeginObject:
+            return this.readObjectFields(handler.handleObject());
+        case BeginArray:
+            return this.readArrayElems(handler.handleArray());
+        case StringValue:
+            return handler.handleString(this.tokenizer.stringValue());
+        case NumberValue:
+            if (!this.tokenizer.isLong()) {
+                return handler.handleNumber(this.tokenizer.numberValue());
             }
+            long value = this.tokenizer.longValue();
+            return (int) value == value ? handler.handleInt((int) value) : handler.handleLong(value);
+        case True:
+            return handler.handleBoolean(true);
+        case False:
+            return handler.handleBoolean(false);
+        case Null:
+            return handler.handleNull();
+        case End:
+            throw new JsonException("Unexpected end of input");
+        default:
+            throw new JsonException("Unexpected %s reading JSON value!", token);
         }
-        return sb.toString();
     }
 
-    private double readNumber() {
-        //TODO proper handling
-        StringBuilder sb = new StringBuilder();
+    /**
+     * Reads the value of a field or element, for a handler that chooses to.
+     * Values that no handler reads are skipped without being decoded.
+     */
+    private class ValueReceiver implements Receiver {
+        private boolean received = false;
 
-        while (true) {
-            char c = this.next();
-            if (Character.isWhitespace(c)) {
-                break;
+        private void skipIfUnread() {
+            if (!this.received) {
+                JsonParser.this.tokenizer.skipValue();
             }
-            if (!(Character.isDigit(c) || c == '.' || c == '-')) {
-                this.unread(c);
-                break;
+        }
+
+        @Override
+        public <T> T receive(ValueHandler<? extends T> handler) {
+            this.markReceived();
+            return JsonParser.this.readValue(handler);
+        }
+
+        @Override
+        public boolean receiveBoolean() {
+            this.markReceived();
+            JsonTokenizer.Token token = JsonParser.this.tokenizer.next();
+            if (token == JsonTokenizer.Token.True || token == JsonTokenizer.Token.False) {
+                return token == JsonTokenizer.Token.True;
             }
-            sb.append(c);
+            throw new JsonException("Unexpected %s, expected a boolean", token);
+        }
+
+        @Override
+        public double receiveNumber() {
+            this.markReceived();
+            JsonParser.this.expect(JsonTokenizer.Token.NumberValue);
+            return JsonParser.this.tokenizer.numberValue();
+        }
+
+        @Override
+        public long receiveLong() {
+            this.markReceived();
+            JsonParser.this.expect(JsonTokenizer.Token.NumberValue);
+            return JsonParser.this.tokenizer.longValue();
         }
-        return Double.parseDouble(sb.toString());
-    }
 
-    private void expect(String target) {
-        this.eatWhitespace();
-        for (int i = 0; i < target.length(); i++) {
-            char c = this.next();
-            if (c != target.charAt(i)) {
-                throw new JsonException("Unexpected character %c, expected %c", c, target.charAt(i));
+        @Override
+        public String receiveString() {
+            this.markReceived();
+            JsonParser.this.expect(JsonTokenizer.Token.StringValue);
+            return JsonParser.this.tokenizer.stringValue();
+        }
+
+        private void markReceived() {
+            if (this.received) {
+                throw new JsonException("Value has already been read");
             }
+            this.received = true;
         }
     }
 
-    private <T> T readValue(ValueHandler<T> handler) {
-        this.eatWhitespace();
-        char first = this.next();
-        switch (first) {
-        case '{':
-            return this.readObjectFields(handler.handleObject());
-        case '[':
-            return this.readArrayElems(handler.handleArray());
-        case '"':
-            return handler.handleString(this.readString());
-        case 't':
-            this.expect("rue");
-            return handler.handleBoolean(true);
-        case 'f':
-            this.expect("alse");
-            return handler.handleBoolean(false);
-        case 'n':
-            this.expect("ull");
-            return handler.handleNull();
-        default:
-            //TODO: Avoid unicode points
-            if (!Character.isDigit(first)) {
-                throw new JsonException("Unknown character %c reading JSON value!", first);
+    /**
+     * Parses a range of the chunks of an array, splitting the range in half until it is a single chunk.
+     */
+    private static class ChunkTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buffer;
+        private final int[] cuts;
+        private final List<List<T>> chunks;
+        private final ValueHandler<T> handler;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(ByteBuffer buffer, int[] cuts, List<List<T>> chunks, ValueHandler<T> handler,
+                          int from, int to) {
+            this.buffer = buffer;
+            this.cuts = cuts;
+            this.chunks = chunks;
+            this.handler = handler;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(new ChunkTask<>(this.buffer, this.cuts, this.chunks, this.handler, this.from, mid),
+                        new ChunkTask<>(this.buffer, this.cuts, this.chunks, this.handler, mid, this.to));
+                return;
             }
-            this.unread(first);
-            return handler.handleNumber(this.readNumber());
+            //Each chunk lies between two cuts, exclusive of both.
+            ByteBuffer chunk = this.buffer.duplicate();
+            chunk.limit(this.cuts[this.from + 1]).position(this.cuts[this.from] + 1);
+            JsonParser p = new JsonParser(JsonTokenizer.of(chunk));
+            this.chunks.set(this.from, p.readChunk(this.handler, this.chunks.size() == 1));
         }
     }
 
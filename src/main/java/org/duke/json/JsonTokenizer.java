@@ -0,0 +1,323 @@
+package org.duke.json;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * Pull-based reader of JSON tokens.
+ *
+ * String and number tokens are only decoded when their value is requested,
+ * so skipped values cost no more than scanning past them.
+ */
+public abstract class JsonTokenizer {
+    //Value of the last number token decoded by scanLong.
+    private long longValue;
+
+    /**
+     * Constructs a tokenizer reading JSON text off a {@link Reader}.
+     *
+     * @param reader Input reader
+     * @return Tokenizer over the input
+     */
+    public static JsonTokenizer of(Reader reader) {
+        return new CharTokenizer(reader);
+    }
+
+    /**
+     * Constructs a tokenizer reading UTF-8 encoded JSON text directly out of a byte buffer,
+     * such as a memory-mapped file.
+     *
+     * @param buffer Input bytes, from its position up til its limit
+     * @return Tokenizer over the input
+     */
+    public static JsonTokenizer of(ByteBuffer buffer) {
+        return new Utf8Tokenizer(buffer);
+    }
+
+    /**
+     * Returns the type of the next token, without consuming it.
+     *
+     * @return Next token type, or {@link Token#End} at end of input.
+     */
+    public abstract Token peek();
+
+    /**
+     * Consumes the next token, and returns its type.
+     * For string and number tokens, their value can then be read
+     * with {@link #stringValue()} or {@link #numberValue()},
+     * up til the next call to {@link #next()}.
+     *
+     * @return Token type, or {@link Token#End} at end of input.
+     */
+    public abstract Token next();
+
+    /**
+     * Decodes the value of the string token just consumed.
+     *
+     * @return String value
+     */
+    public abstract String stringValue();
+
+    /**
+     * Decodes the value of the string token just consumed, as an object field name.
+     * As the same few field names repeat throughout a document,
+     * implementations may return a shared instance rather than a fresh one.
+     *
+     * @return Field name
+     */
+    public String nameValue() {
+        return this.stringValue();
+    }
+
+    /**
+     * Returns the length of the number token just consumed.
+     *
+     * @return Number of characters in the token
+     */
+    protected abstract int numberLength();
+
+    /**
+     * Returns a character of the number token just consumed.
+     *
+     * @param index Index within the token
+     * @return Character at the index
+     */
+    protected abstract char numberChar(int index);
+
+    /**
+     * Returns the text of the number token just consumed.
+     *
+     * @return Number token
+     */
+    protected abstract String numberText();
+
+    /**
+     * Decodes the value of the number token just consumed.
+     *
+     * @return Number value, correctly rounded
+     */
+    public double numberValue() {
+        //Converting a long to a double rounds the same way parsing the text would,
+        //but a long has no negative zero.
+        if (this.scanLong() && (this.longValue != 0 || this.numberChar(0) != '-')) {
+            return this.longValue;
+        }
+        return Double.parseDouble(this.numberText());
+    }
+
+    /**
+     * Checks whether the number token just consumed is an integer in the range of a long,
+     * written without a fraction or exponent.
+     *
+     * @return Whether {@link #longValue()} can decode the token
+     */
+    public boolean isLong() {
+        return this.scanLong();
+    }
+
+    /**
+     * Decodes the value of the number token just consumed, as a long.
+     *
+     * @return Number value
+     * @throws JsonException If the number is not an integer in the range of a long
+     */
+    public long longValue() {
+        if (!this.scanLong()) {
+            throw new JsonException("Expected an integer, got %s", this.numberText());
+        }
+        return this.longValue;
+    }
+
+    /**
+     * Checks the number token just consumed against the JSON number grammar,
+     * decoding it into {@link #longValue} if it is an integer that fits.
+     *
+     * @return Whether the token was decoded
+     * @throws JsonException If the token is not a valid JSON number
+     */
+    private boolean scanLong() {
+        int length = this.numberLength();
+        int i = 0;
+        boolean negative = length > 0 && this.numberChar(0) == '-';
+        if (negative) {
+            i++;
+        }
+        int digitsStart = i;
+        //Accumulate negatively, so that Long.MIN_VALUE fits.
+        long value = 0;
+        boolean fits = true;
+        while (i < length && isDigit(this.numberChar(i))) {
+            int digit = this.numberChar(i) - '0';
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                fits = false;
+            }
+            value = value * 10 - digit;
+            i++;
+        }
+        int digits = i - digitsStart;
+        if (digits == 0 || (digits > 1 && this.numberChar(digitsStart) == '0')) {
+            throw new JsonException("Bad number %s", this.numberText());
+        }
+        boolean integral = true;
+        if (i < length && this.numberChar(i) == '.') {
+            integral = false;
+            i = this.skipDigits(i + 1, length);
+        }
+        if (i < length && (this.numberChar(i) == 'e' || this.numberChar(i) == 'E')) {
+            integral = false;
+            i++;
+            if (i < length && (this.numberChar(i) == '+' || this.numberChar(i) == '-')) {
+                i++;
+            }
+            i = this.skipDigits(i, length);
+        }
+        if (i != length) {
+            throw new JsonException("Bad number %s", this.numberText());
+        }
+        if (!integral || !fits || (!negative && value == Long.MIN_VALUE)) {
+            return false;
+        }
+        this.longValue = negative ? value : -value;
+        return true;
+    }
+
+    /**
+     * Skips a run of one or more digits.
+     *
+     * @return Index after the digits
+     */
+    private int skipDigits(int i, int length) {
+        int start = i;
+        while (i < length && isDigit(this.numberChar(i))) {
+            i++;
+        }
+        if (i == start) {
+            throw new JsonException("Bad number %s", this.numberText());
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Consumes one whole JSON value, including any nested values, without decoding it.
+     */
+    public void skipValue() {
+        int depth = 0;
+        do {
+            Token token = this.next();
+            switch (token) {
+            case BeginObject:
+            case BeginArray:
+                depth++;
+                break;
+            case EndObject:
+            case EndArray:
+                if (depth == 0) {
+                    throw new JsonException("Unexpected %s, expected a JSON value", token);
+                }
+                depth--;
+                break;
+            case End:
+                throw new JsonException("Unexpected end of input");
+            case Comma:
+            case Colon:
+                if (depth == 0) {
+                    throw new JsonException("Unexpected %s, expected a JSON value", token);
+                }
+                break;
+            default:
+                break;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Decodes the escape sequences in a raw JSON string.
+     *
+     * @param raw     Characters between the quotes
+     * @param start   Start index in {@code raw}
+     * @param end     End index in {@code raw}
+     * @param scratch Builder to decode into, reused across calls
+     * @return Decoded string
+     */
+    static String unescape(char[] raw, int start, int end, StringBuilder scratch) {
+        scratch.setLength(0);
+        int i = start;
+        while (i < end) {
+            char c = raw[i++];
+            if (c != '\\') {
+                scratch.append(c);
+                continue;
+            }
+            if (i == end) {
+                throw new JsonException("Unterminated escape");
+            }
+            char e = raw[i++];
+            switch (e) {
+            case '\\':
+            case '\"':
+            case '/':
+                scratch.append(e);
+                break;
+            case 'b':
+                scratch.append('\b');
+                break;
+            case 'f':
+                scratch.append('\f');
+                break;
+            case 'n':
+                scratch.append('\n');
+                break;
+            case 'r':
+                scratch.append('\r');
+                break;
+            case 't':
+                scratch.append('\t');
+                break;
+            case 'u':
+                scratch.append(readUnicodeEscape(raw, i, end));
+                i += 4;
+                break;
+            default:
+                throw new JsonException("Unknown escape %c", e);
+            }
+        }
+        return scratch.toString();
+    }
+
+    private static char readUnicodeEscape(char[] raw, int start, int end) {
+        if (start + 4 > end) {
+            throw new JsonException("Bad unicode escape %s", new String(raw, start, end - start));
+        }
+        int code = 0;
+        for (int i = start; i < start + 4; i++) {
+            int digit = Character.digit(raw[i], 16);
+            if (digit < 0) {
+                throw new JsonException("Bad unicode escape %s", new String(raw, start, 4));
+            }
+            code = (code << 4) | digit;
+        }
+        return (char) code;
+    }
+
+    /**
+     * Enumerates the kinds of JSON tokens.
+     */
+    public enum Token {
+        BeginObject,
+        EndObject,
+        BeginArray,
+        EndArray,
+        Comma,
+        Colon,
+        StringValue,
+        NumberValue,
+        True,
+        False,
+        Null,
+        End
+    }
+}
@@ -1,8 +1,9 @@
 package org.duke.json;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.function.BiConsumer;
@@ -10,10 +11,29 @@ import java.util.function.Consumer;
 
 /**
  * This class handles serialization of Java values into JSON values.
+ *
+ * Output goes either to a {@link Writer}, or as UTF-8 straight into a byte buffer
+ * which is drained to a channel whenever it fills.
+ * In compact mode, no whitespace is written within values.
  */
 public class JsonWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    //Escape sequences for the characters needing one, indexed by character.
+    private static final String[] escapes = new String[128];
+
+    static {
+        escapes['\\'] = "\\\\";
+        escapes['"'] = "\\\"";
+        escapes['/'] = "\\/";
+        escapes['\b'] = "\\b";
+        escapes['\f'] = "\\f";
+        escapes['\n'] = "\\n";
+        escapes['\r'] = "\\r";
+        escapes['\t'] = "\\t";
+    }
 
-    private final Writer writer;
+    private final Sink sink;
+    private final boolean compact;
     private int indentationLevel = 0;
     private final ValueContext valueContext = new ValueContext();
 
@@ -23,39 +43,45 @@ public class JsonWriter implements AutoCloseable {
      * @param writer Output writer
      */
     public JsonWriter(Writer writer) {
-        this.writer = new BufferedWriter(writer);
+        this(writer, false);
     }
 
-    private static String escapeString(String unescaped) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < unescaped.length(); i++) {
-            char c = unescaped.charAt(i);
-            switch (c) {
-            case '\\':
-            case '\"':
-            case '/':
-                sb.append("\\").append(c);
-                break;
-            case '\b':
-                sb.append("\\b");
-                break;
-            case '\f':
-                sb.append("\\f");
-                break;
-            case '\n':
-                sb.append("\\n");
-                break;
-            case '\r':
-                sb.append("\\r");
-                break;
-            case '\t':
-                sb.append("\\t");
+    /**
+     * Constructs a JsonWriter wrapping a output writer.
+     *
+     * @param writer  Output writer
+     * @param compact Whether to leave out line breaks and indentation within values
+     */
+    public JsonWriter(Writer writer, boolean compact) {
+        this.sink = new CharSink(writer);
+        this.compact = compact;
+    }
+
+    /**
+     * Constructs a JsonWriter encoding UTF-8 directly into a buffer, which is written to the given channel.
+     *
+     * @param channel Output channel
+     * @param compact Whether to leave out line breaks and indentation within values
+     */
+    public JsonWriter(WritableByteChannel channel, boolean compact) {
+        this.sink = new ByteSink(channel);
+        this.compact = compact;
+    }
+
+    /**
+     * Finds the length of the longest prefix of a string, starting from the given index,
+     * which needs no escaping.
+     */
+    private static int plainRun(String s, int from) {
+        int i = from;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c < escapes.length && escapes[c] != null) {
                 break;
-            default:
-                sb.append(c);
             }
+            i++;
         }
-        return sb.toString();
+        return i - from;
     }
 
     /**
@@ -77,11 +103,26 @@ public class JsonWriter implements AutoCloseable {
         this.valueContext.writeValue(value);
     }
 
+    /**
+     * Ends the current line, so that consecutive top-level values
+     * written to the same output each start on their own line.
+     */
+    public void endLine() {
+        try {
+            this.sink.write('\n');
+        } catch (IOException e) {
+            throw new JsonException("IO error", e);
+        }
+    }
+
     private JsonWriter beginLine() {
+        if (this.compact) {
+            return this;
+        }
         try {
-            this.writer.write('\n');
+            this.sink.write('\n');
             for (int i = 0; i < this.indentationLevel; i++) {
-                this.writer.write('\t');
+                this.sink.write('\t');
             }
         } catch (IOException e) {
             throw new JsonException("IO error", e);
@@ -91,10 +132,49 @@ public class JsonWriter implements AutoCloseable {
 
     private JsonWriter appendQuoted(String unescaped) {
         try {
-            String escaped = JsonWriter.escapeString(unescaped);
-            this.writer.write('"');
-            this.writer.write(escaped);
-            this.writer.write('"');
+            this.sink.write('"');
+            int i = 0;
+            while (i < unescaped.length()) {
+                int run = plainRun(unescaped, i);
+                if (run > 0) {
+                    this.sink.write(unescaped, i, run);
+                    i += run;
+                } else {
+                    this.sink.write(escapes[unescaped.charAt(i++)]);
+                }
+            }
+            this.sink.write('"');
+        } catch (IOException e) {
+            throw new JsonException("IO error", e);
+        }
+        return this;
+    }
+
+    private JsonWriter appendNumber(double d) {
+        //Double.toString writes integers below 10^7 as digits then ".0", which is cheap to do directly.
+        long l = (long) d;
+        if (l != d || Math.abs(l) >= 10_000_000 || (l == 0 && Double.doubleToRawLongBits(d) != 0)) {
+            return this.append(Double.toString(d));
+        }
+        return this.appendLong(l).append(".0");
+    }
+
+    private JsonWriter appendLong(long l) {
+        if (l == Long.MIN_VALUE) {
+            return this.append(Long.toString(l));
+        }
+        try {
+            if (l < 0) {
+                this.sink.write('-');
+                l = -l;
+            }
+            long scale = 1;
+            while (scale <= l / 10) {
+                scale *= 10;
+            }
+            for (; scale > 0; scale /= 10) {
+                this.sink.write((char) ('0' + l / scale % 10));
+            }
         } catch (IOException e) {
             throw new JsonException("IO error", e);
         }
@@ -103,7 +183,7 @@ public class JsonWriter implements AutoCloseable {
 
     private JsonWriter append(String literal) {
         try {
-            this.writer.write(literal);
+            this.sink.write(literal);
         } catch (IOException e) {
             throw new JsonException("IO error", e);
         }
@@ -112,7 +192,7 @@ public class JsonWriter implements AutoCloseable {
 
     private JsonWriter append(char literal) {
         try {
-            this.writer.write(literal);
+            this.sink.write(literal);
         } catch (IOException e) {
             throw new JsonException("IO error", e);
         }
@@ -120,17 +200,17 @@ public class JsonWriter implements AutoCloseable {
     }
 
     /**
-     * Flushes the underlying Writer.
+     * Flushes the underlying Writer or channel.
      *
      * @throws IOException Throws any exception from flushing the underlying stream.
      */
     public void flush() throws IOException {
-        this.writer.flush();
+        this.sink.flush();
     }
 
     @Override
     public void close() throws Exception {
-        this.writer.close();
+        this.sink.close();
     }
 
     /**
@@ -142,11 +222,15 @@ public class JsonWriter implements AutoCloseable {
         }
 
         public void writeNumber(double d) {
-            JsonWriter.this.append(Double.toString(d));
+            JsonWriter.this.appendNumber(d);
+        }
+
+        public void writeNumber(long l) {
+            JsonWriter.this.appendLong(l);
         }
 
         public void writeBoolean(boolean b) {
-            JsonWriter.this.append(Boolean.toString(b));
+            JsonWriter.this.append(b ? "true" : "false");
         }
 
         public void writeNull() {
@@ -168,9 +252,20 @@ public class JsonWriter implements AutoCloseable {
         public <T> void writeValue(T value) {
             if (value == null) {
                 this.writeNull();
-                return;
+            } else if (value instanceof String) {
+                this.writeString((String) value);
+            } else if (value instanceof Encodable) {
+                ((Encodable) value).encode(this);
+            } else if (value instanceof Boolean) {
+                this.writeBoolean((Boolean) value);
+            } else if (value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte) {
+                this.writeNumber(((Number) value).longValue());
+            } else if (value instanceof Number) {
+                this.writeNumber(((Number) value).doubleValue());
+            } else {
+                this.writeValue(value, value.getClass());
             }
-            this.writeValue(value, value.getClass());
         }
 
         public <T> void writeValue(T value, Class<? extends T> clazz) {
@@ -181,8 +276,8 @@ public class JsonWriter implements AutoCloseable {
         public <T> void writeValues(Iterator<T> it, BiConsumer<ValueContext, T> coder) {
             this.writeArray(ctx -> {
                 while (it.hasNext()) {
-                    T value = it.next();
-                    ctx.writeElem(vctx -> coder.accept(vctx, value));
+                    ctx.startObject();
+                    coder.accept(this, it.next());
                 }
             });
         }
@@ -239,14 +334,34 @@ public class JsonWriter implements AutoCloseable {
             return '}';
         }
 
-        public void writeField(String name, Consumer<ValueContext> coder) {
+        private ValueContext startField(String name) {
             this.startObject();
-            JsonWriter.this.appendQuoted(name).append(": ");
-            coder.accept(JsonWriter.this.valueContext);
+            JsonWriter.this.appendQuoted(name).append(JsonWriter.this.compact ? ":" : ": ");
+            return JsonWriter.this.valueContext;
+        }
+
+        public void writeField(String name, Consumer<ValueContext> coder) {
+            coder.accept(this.startField(name));
         }
 
         public <T> void writeField(String name, T value) {
-            this.writeField(name, vctx -> vctx.writeValue(value));
+            this.startField(name).writeValue(value);
+        }
+
+        public void writeField(String name, String value) {
+            this.startField(name).writeValue(value);
+        }
+
+        public void writeField(String name, boolean value) {
+            this.startField(name).writeBoolean(value);
+        }
+
+        public void writeField(String name, double value) {
+            this.startField(name).writeNumber(value);
+        }
+
+        public void writeField(String name, long value) {
+            this.startField(name).writeNumber(value);
         }
     }
 
@@ -267,4 +382,158 @@ public class JsonWriter implements AutoCloseable {
             coder.accept(JsonWriter.this.valueContext);
         }
     }
+
+    /**
+     * Destination for the characters of the JSON text.
+     */
+    private abstract static class Sink {
+        abstract void write(char c) throws IOException;
+
+        abstract void write(String s, int offset, int length) throws IOException;
+
+        void write(String s) throws IOException {
+            this.write(s, 0, s.length());
+        }
+
+        abstract void flush() throws IOException;
+
+        abstract void close() throws IOException;
+    }
+
+    private static class CharSink extends Sink {
+        private final Writer writer;
+        private final char[] buffer = new char[BUFFER_SIZE / 2];
+        private int position = 0;
+
+        private CharSink(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void write(char c) throws IOException {
+            if (this.position == this.buffer.length) {
+                this.drain();
+            }
+            this.buffer[this.position++] = c;
+        }
+
+        @Override
+        void write(String s, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (this.position == this.buffer.length) {
+                    this.drain();
+                }
+                int count = Math.min(length, this.buffer.length - this.position);
+                s.getChars(offset, offset + count, this.buffer, this.position);
+                this.position += count;
+                offset += count;
+                length -= count;
+            }
+        }
+
+        private void drain() throws IOException {
+            this.writer.write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+
+        @Override
+        void flush() throws IOException {
+            this.drain();
+            this.writer.flush();
+        }
+
+        @Override
+        void close() throws IOException {
+            this.drain();
+            this.writer.close();
+        }
+    }
+
+    /**
+     * Encodes characters as UTF-8 into a reused buffer, writing it out to a channel when full.
+     *
+     * Unpaired surrogates are written as '?', as the standard UTF-8 encoder does.
+     */
+    private static class ByteSink extends Sink {
+        private final WritableByteChannel channel;
+        private final byte[] bytes = new byte[BUFFER_SIZE];
+        private final ByteBuffer buffer = ByteBuffer.wrap(this.bytes);
+        private int position = 0;
+
+        private ByteSink(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        void write(char c) throws IOException {
+            if (c < 0x80 && this.position < this.bytes.length) {
+                this.bytes[this.position++] = (byte) c;
+                return;
+            }
+            this.write(String.valueOf(c), 0, 1);
+        }
+
+        @Override
+        void write(String s, int offset, int length) throws IOException {
+            byte[] bytes = this.bytes;
+            int end = offset + length;
+            int i = offset;
+            while (i < end) {
+                //Leave room for the longest encoding of one code point.
+                if (this.position >= bytes.length - 4) {
+                    this.drain();
+                }
+                int pos = this.position;
+                int limit = Math.min(end, i + bytes.length - 4 - pos);
+                //Bulk copy ASCII, the common case.
+                while (i < limit) {
+                    char c = s.charAt(i);
+                    if (c >= 0x80) {
+                        break;
+                    }
+                    bytes[pos++] = (byte) c;
+                    i++;
+                }
+                if (i < limit) {
+                    char c = s.charAt(i++);
+                    if (c < 0x800) {
+                        bytes[pos++] = (byte) (0xC0 | c >> 6);
+                        bytes[pos++] = (byte) (0x80 | c & 0x3F);
+                    } else if (Character.isHighSurrogate(c) && i < end && Character.isLowSurrogate(s.charAt(i))) {
+                        int cp = Character.toCodePoint(c, s.charAt(i++));
+                        bytes[pos++] = (byte) (0xF0 | cp >> 18);
+                        bytes[pos++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                        bytes[pos++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                        bytes[pos++] = (byte) (0x80 | cp & 0x3F);
+                    } else if (Character.isSurrogate(c)) {
+                        bytes[pos++] = '?';
+                    } else {
+                        bytes[pos++] = (byte) (0xE0 | c >> 12);
+                        bytes[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                        bytes[pos++] = (byte) (0x80 | c & 0x3F);
+                    }
+                }
+                this.position = pos;
+            }
+        }
+
+        private void drain() throws IOException {
+            this.buffer.clear().limit(this.position);
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.position = 0;
+        }
+
+        @Override
+        void flush() throws IOException {
+            this.drain();
+        }
+
+        @Override
+        void close() throws IOException {
+            this.drain();
+            this.channel.close();
+        }
+    }
 }
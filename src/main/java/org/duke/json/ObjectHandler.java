@@ -21,6 +21,7 @@ public interface ObjectHandler<T> {
 
     /**
      * Handles a JSON object field name + value pair.
+     * If the value is not read through the {@param receiver}, it is skipped without being decoded.
      *
      * @param name     Field name
      * @param receiver {@link ValueHandler} callback, for field value
@@ -13,4 +13,53 @@ public interface Receiver {
      * @return Extracted value
      */
     <T> T receive(ValueHandler<? extends T> handler);
+
+    /**
+     * Reads the value as a JSON boolean.
+     *
+     * @return Boolean value
+     */
+    default boolean receiveBoolean() {
+        return this.receive(ValueHandler.BooleanValue.INSTANCE);
+    }
+
+    /**
+     * Reads the value as a JSON number.
+     *
+     * @return Number value
+     */
+    default double receiveNumber() {
+        return this.receive(ValueHandler.NumberValue.INSTANCE);
+    }
+
+    /**
+     * Reads the value as a JSON number, which must be an integer in the range of a long.
+     *
+     * @return Integer value
+     */
+    default long receiveLong() {
+        return this.receive(ValueHandler.LongValue.INSTANCE);
+    }
+
+    /**
+     * Reads the value as a JSON number, which must be an integer in the range of an int.
+     *
+     * @return Integer value
+     */
+    default int receiveInt() {
+        long value = this.receiveLong();
+        if ((int) value != value) {
+            throw new JsonException("Integer %d out of range", value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads the value as a JSON string.
+     *
+     * @return String value
+     */
+    default String receiveString() {
+        return this.receive(ValueHandler.StringValue.INSTANCE);
+    }
 }
@@ -1,19 +1,24 @@
 package org.duke.json;
 
 import java.lang.reflect.Type;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 
 /**
  * Registry mapping Java classes to appropriate JSON encoder functions.
+ *
+ * The encoder for each class is looked up once, then kept in a {@link ClassValue}.
+ * Registering an encoder replaces that table, so that later lookups see it.
+ * Strings, booleans, numbers and {@link Encodable} values are written directly by
+ * {@link JsonWriter.ValueContext#writeValue(Object)}, without consulting the registry.
  */
 public class Registry {
-    private static final HashMap<Class<?>, BiConsumer<JsonWriter.ValueContext, ?>> encoderMap
-            = new HashMap<>();
-    private static final HashMap<Class<?>, BiConsumer<JsonWriter.ValueContext, ?>> encoderCache
-            = new HashMap<>();
+    private static final Map<Class<?>, BiConsumer<JsonWriter.ValueContext, ?>> encoderMap
+            = new ConcurrentHashMap<>();
+    private static volatile ClassValue<BiConsumer<JsonWriter.ValueContext, ?>> encoderCache
+            = newEncoderCache();
 
     static {
         register(List.class, (ctx, list) ->
@@ -34,11 +39,20 @@ public class Registry {
         register(Object.class, (ctx, obj) -> ctx.writeString(obj.toString()));
     }
 
-    public static <T> void register(
+    public static synchronized <T> void register(
             Class<T> clazz,
             BiConsumer<JsonWriter.ValueContext, T> encoder) {
         encoderMap.put(clazz, encoder);
-        encoderCache.clear();
+        encoderCache = newEncoderCache();
+    }
+
+    private static ClassValue<BiConsumer<JsonWriter.ValueContext, ?>> newEncoderCache() {
+        return new ClassValue<>() {
+            @Override
+            protected BiConsumer<JsonWriter.ValueContext, ?> computeValue(Class<?> type) {
+                return getEncoderInner(type);
+            }
+        };
     }
 
     private static <T> BiConsumer<JsonWriter.ValueContext, T> getEncoderInner(Class<? extends T> clazz) {
@@ -75,13 +89,8 @@ public class Registry {
     }
 
     public static <T> BiConsumer<JsonWriter.ValueContext, T> getEncoder(Class<? extends T> clazz) {
-        if (encoderCache.containsKey(clazz)) {
-            //noinspection unchecked
-            return (BiConsumer<JsonWriter.ValueContext, T>) encoderCache.get(clazz);
-        }
-        BiConsumer<JsonWriter.ValueContext, T> encoder = getEncoderInner(clazz);
-        encoderCache.put(clazz, encoder);
-        return encoder;
+        //noinspection unchecked
+        return (BiConsumer<JsonWriter.ValueContext, T>) encoderCache.get(clazz);
     }
 
 }
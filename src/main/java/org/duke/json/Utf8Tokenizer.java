@@ -0,0 +1,223 @@
+package org.duke.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link JsonTokenizer} scanning UTF-8 bytes in place, such as those of a memory-mapped file.
+ *
+ * Nothing is copied out of the buffer while scanning;
+ * a string or number is only decoded once its value is asked for.
+ */
+final class Utf8Tokenizer extends JsonTokenizer {
+    private static final int NAME_CACHE_SIZE = 64;
+
+    private final ByteBuffer buf;
+    private final ByteBuffer view;
+    private final StringBuilder scratch = new StringBuilder();
+    private final int limit;
+    private int pos;
+    private byte[] bytes = new byte[256];
+
+    private int valueStart;
+    private int valueEnd;
+    private boolean valueEscaped;
+
+    //Recently decoded field names, indexed by hash of their bytes.
+    private final byte[][] nameKeys = new byte[NAME_CACHE_SIZE][];
+    private final String[] nameValues = new String[NAME_CACHE_SIZE];
+
+    Utf8Tokenizer(ByteBuffer buffer) {
+        this.buf = buffer;
+        this.view = buffer.duplicate();
+        this.pos = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    @Override
+    public Token peek() {
+        while (this.pos < this.limit) {
+            byte c = this.buf.get(this.pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return classify(c);
+            }
+            this.pos++;
+        }
+        return Token.End;
+    }
+
+    private static Token classify(byte c) {
+        switch (c) {
+        case '{':
+            return Token.BeginObject;
+        case '}':
+            return Token.EndObject;
+        case '[':
+            return Token.BeginArray;
+        case ']':
+            return Token.EndArray;
+        case ',':
+            return Token.Comma;
+        case ':':
+            return Token.Colon;
+        case '"':
+            return Token.StringValue;
+        case 't':
+            return Token.True;
+        case 'f':
+            return Token.False;
+        case 'n':
+            return Token.Null;
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return Token.NumberValue;
+            }
+            throw new JsonException("Unknown character %c reading JSON value!", (char) (c & 0xFF));
+        }
+    }
+
+    @Override
+    public Token next() {
+        Token token = this.peek();
+        switch (token) {
+        case StringValue:
+            this.pos++;
+            this.scanString();
+            break;
+        case NumberValue:
+            this.scanNumber();
+            break;
+        case True:
+            this.expectLiteral("true");
+            break;
+        case False:
+            this.expectLiteral("false");
+            break;
+        case Null:
+            this.expectLiteral("null");
+            break;
+        case End:
+            break;
+        default:
+            this.pos++;
+        }
+        return token;
+    }
+
+    private void scanString() {
+        //Multi-byte UTF-8 sequences never contain quote or backslash bytes,
+        //so the string can be delimited without decoding it.
+        ByteBuffer b = this.buf;
+        int p = this.pos;
+        int l = this.limit;
+        boolean escaped = false;
+        while (true) {
+            if (p >= l) {
+                throw new JsonException("Unexpected end of input");
+            }
+            byte c = b.get(p);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                escaped = true;
+                p++;
+            }
+            p++;
+        }
+        this.valueStart = this.pos;
+        this.valueEnd = p;
+        this.valueEscaped = escaped;
+        this.pos = p + 1;
+    }
+
+    private void scanNumber() {
+        this.valueStart = this.pos;
+        while (this.pos < this.limit && isNumberByte(this.buf.get(this.pos))) {
+            this.pos++;
+        }
+        this.valueEnd = this.pos;
+    }
+
+    private static boolean isNumberByte(byte c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+    }
+
+    private void expectLiteral(String literal) {
+        if (this.limit - this.pos < literal.length()) {
+            throw new JsonException("Unexpected end of input");
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            byte c = this.buf.get(this.pos + i);
+            if (c != literal.charAt(i)) {
+                throw new JsonException("Unexpected character %c, expected %c",
+                        (char) (c & 0xFF), literal.charAt(i));
+            }
+        }
+        this.pos += literal.length();
+    }
+
+    /**
+     * Copies the bytes of the current value into the scratch array.
+     *
+     * @return Number of bytes copied
+     */
+    private int copyValue() {
+        int length = this.valueEnd - this.valueStart;
+        if (length > this.bytes.length) {
+            this.bytes = new byte[Math.max(length, this.bytes.length * 2)];
+        }
+        this.view.limit(this.valueEnd).position(this.valueStart);
+        this.view.get(this.bytes, 0, length);
+        return length;
+    }
+
+    @Override
+    public String stringValue() {
+        int length = this.copyValue();
+        String raw = new String(this.bytes, 0, length, StandardCharsets.UTF_8);
+        if (!this.valueEscaped) {
+            return raw;
+        }
+        char[] chars = raw.toCharArray();
+        return unescape(chars, 0, chars.length, this.scratch);
+    }
+
+    @Override
+    public String nameValue() {
+        if (this.valueEscaped) {
+            return this.stringValue();
+        }
+        int length = this.copyValue();
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + this.bytes[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+        byte[] key = this.nameKeys[slot];
+        if (key != null && Arrays.equals(key, 0, key.length, this.bytes, 0, length)) {
+            return this.nameValues[slot];
+        }
+        String name = new String(this.bytes, 0, length, StandardCharsets.UTF_8);
+        this.nameKeys[slot] = Arrays.copyOf(this.bytes, length);
+        this.nameValues[slot] = name;
+        return name;
+    }
+
+    @Override
+    protected int numberLength() {
+        return this.valueEnd - this.valueStart;
+    }
+
+    @Override
+    protected char numberChar(int index) {
+        return (char) this.buf.get(this.valueStart + index);
+    }
+
+    @Override
+    protected String numberText() {
+        int length = this.copyValue();
+        return new String(this.bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
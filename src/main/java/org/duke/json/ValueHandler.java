@@ -37,6 +37,28 @@ public interface ValueHandler<T> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Called when the JSON value is an integer in the range of a long.
+     * By default, this hands the value on to {@link #handleNumber(double)}.
+     *
+     * @param val JSON value
+     * @return Extracted value
+     */
+    default T handleLong(long val) {
+        return this.handleNumber(val);
+    }
+
+    /**
+     * Called when the JSON value is an integer in the range of an int.
+     * By default, this hands the value on to {@link #handleLong(long)}.
+     *
+     * @param val JSON value
+     * @return Extracted value
+     */
+    default T handleInt(int val) {
+        return this.handleLong(val);
+    }
+
     /**
      * Called when the JSON value is a null.
      *
@@ -77,11 +99,31 @@ public interface ValueHandler<T> {
     class BooleanValue implements ValueHandler<Boolean> {
         public static final BooleanValue INSTANCE = new BooleanValue();
 
-        public Boolean handleString(boolean val) {
+        public Boolean handleBoolean(boolean val) {
             return val;
         }
     }
 
+    class NumberValue implements ValueHandler<Double> {
+        public static final NumberValue INSTANCE = new NumberValue();
+
+        public Double handleNumber(double val) {
+            return val;
+        }
+    }
+
+    class LongValue implements ValueHandler<Long> {
+        public static final LongValue INSTANCE = new LongValue();
+
+        public Long handleLong(long val) {
+            return val;
+        }
+
+        public Long handleNumber(double val) {
+            throw new JsonException("Expected an integer, got %s", val);
+        }
+    }
+
     class StringValue implements ValueHandler<String> {
         public static final StringValue INSTANCE = new StringValue();
 
@@ -0,0 +1,135 @@
+package org.duke.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts and times every command Duke handles, for the whole process.
+ *
+ * Each stage of handling a command is timed separately, as is each command's handler,
+ * so it is clear where the time goes.
+ * Timings can be read with the {@code stats} command, or over JMX as {@value #OBJECT_NAME}.
+ */
+public final class CommandMetrics implements CommandMetricsMXBean {
+    public static final String OBJECT_NAME = "org.duke:type=CommandMetrics";
+    private static final CommandMetrics instance = new CommandMetrics();
+
+    private final Timer[] stages = new Timer[Stage.values().length];
+    private final Map<String, Timer> commands = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            //Timings are still recorded, and shown by the stats command.
+        }
+    }
+
+    private CommandMetrics() {
+        for (int i = 0; i < this.stages.length; i++) {
+            this.stages[i] = new Timer();
+        }
+    }
+
+    /**
+     * Returns the metrics for this process, registering them over JMX on first use.
+     *
+     * @return Process-wide metrics
+     */
+    public static CommandMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the timer for a stage of handling commands.
+     *
+     * @param stage Stage to time
+     * @return Stage timer
+     */
+    public Timer getStage(Stage stage) {
+        return this.stages[stage.ordinal()];
+    }
+
+    /**
+     * Returns the timer for a command's handler, starting one if needed.
+     *
+     * @param command Command name
+     * @return Handler timer
+     */
+    public Timer getCommand(String command) {
+        return this.commands.computeIfAbsent(command, name -> new Timer());
+    }
+
+    @Override
+    public Map<String, LatencySummary> getStages() {
+        Map<String, LatencySummary> summaries = new TreeMap<>();
+        for (Stage stage : Stage.values()) {
+            summaries.put(stage.name(), this.getStage(stage).summarize());
+        }
+        return summaries;
+    }
+
+    @Override
+    public Map<String, LatencySummary> getCommands() {
+        Map<String, LatencySummary> summaries = new TreeMap<>();
+        this.commands.forEach((name, timer) -> summaries.put(name, timer.summarize()));
+        return summaries;
+    }
+
+    @Override
+    public void reset() {
+        for (Timer stage : this.stages) {
+            stage.reset();
+        }
+        this.commands.values().forEach(Timer::reset);
+    }
+
+    /**
+     * Enumerates the timed stages of handling a command.
+     */
+    public enum Stage {
+        //Splitting the command line into a command.
+        Parse,
+        //Everything from receiving the command line til its handler returns.
+        Dispatch,
+        //Running the command's handler.
+        Handle,
+        //Writing changes out to disk, which happens apart from the commands making them.
+        Save
+    }
+
+    /**
+     * Times one kind of operation, counting the failures among them.
+     */
+    public static class Timer {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        /**
+         * Records one run of the operation.
+         *
+         * @param nanos  Time taken, in nanoseconds
+         * @param failed Whether the operation failed
+         */
+        public void record(long nanos, boolean failed) {
+            this.histogram.record(nanos);
+            if (failed) {
+                this.errors.increment();
+            }
+        }
+
+        public LatencySummary summarize() {
+            return this.histogram.summarize(this.errors.sum());
+        }
+
+        private void reset() {
+            this.histogram.reset();
+            this.errors.reset();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.duke.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface for {@link CommandMetrics}, registered as {@value CommandMetrics#OBJECT_NAME}.
+ */
+public interface CommandMetricsMXBean {
+    /**
+     * Returns timings for each stage of handling a command, by stage name.
+     *
+     * @return Stage timings
+     */
+    Map<String, LatencySummary> getStages();
+
+    /**
+     * Returns timings for each command's handler, by command name.
+     *
+     * @return Handler timings
+     */
+    Map<String, LatencySummary> getCommands();
+
+    /**
+     * Forgets every timing recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,120 @@
+package org.duke.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how many recorded durations fell into each of a fixed set of buckets,
+ * from which percentiles can be read back.
+ *
+ * Buckets grow with the values they hold: each power of two is split into 32 buckets,
+ * so any value is known to within about 3%, from nanoseconds up to minutes, in a fixed 9 KB.
+ * Recording only increments an atomic counter, so any number of threads can record at once without locking.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    //Values of 2^40ns (about 18 minutes) and up all share the last bucket.
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Finds the bucket for a value. Values below 32 each have their own bucket,
+     * and larger ones are bucketed by their leading bit and the five bits after it.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int leading = 63 - Long.numberOfLeadingZeros(value);
+        if (leading >= MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        int shift = leading - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Finds the largest value a bucket holds.
+     */
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos Duration in nanoseconds
+     */
+    public void record(long nanos) {
+        this.counts.incrementAndGet(bucketOf(nanos));
+        this.total.addAndGet(nanos);
+        long max = this.max.get();
+        while (nanos > max && !this.max.compareAndSet(max, nanos)) {
+            max = this.max.get();
+        }
+    }
+
+    /**
+     * Forgets every duration recorded so far.
+     * Durations recorded meanwhile may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.total.set(0);
+        this.max.set(0);
+    }
+
+    /**
+     * Sums up the durations recorded so far.
+     *
+     * @param errors Number of the recorded operations which failed
+     * @return Summary of durations
+     */
+    public LatencySummary summarize(long errors) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.counts.get(i);
+            count += counts[i];
+        }
+        long max = this.max.get();
+        return new LatencySummary(count, errors,
+                count == 0 ? 0 : this.total.get() / count,
+                percentile(counts, count, 0.5, max),
+                percentile(counts, count, 0.9, max),
+                percentile(counts, count, 0.99, max),
+                max);
+    }
+
+    /**
+     * Finds the value at or below which the given fraction of recorded values fall,
+     * rounded up to the top of its bucket, but never above the largest value recorded.
+     */
+    private static long percentile(long[] counts, long count, double fraction, long max) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                //The last bucket has no top, as it takes every value too large for the others.
+                return i == counts.length - 1 ? max : Math.min(highestIn(i), max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,57 @@
+package org.duke.metrics;
+
+/**
+ * How many times an operation ran, how often it failed, and how long it took, as of one moment.
+ *
+ * Durations are given in milliseconds, which is how they are shown over JMX.
+ */
+public class LatencySummary {
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final long count;
+    private final long errors;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+
+    LatencySummary(long count, long errors, long meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+            long maxNanos) {
+        this.count = count;
+        this.errors = errors;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getErrors() {
+        return this.errors;
+    }
+
+    public double getMeanMillis() {
+        return this.meanNanos / NANOS_PER_MILLI;
+    }
+
+    public double getP50Millis() {
+        return this.p50Nanos / NANOS_PER_MILLI;
+    }
+
+    public double getP90Millis() {
+        return this.p90Nanos / NANOS_PER_MILLI;
+    }
+
+    public double getP99Millis() {
+        return this.p99Nanos / NANOS_PER_MILLI;
+    }
+
+    public double getMaxMillis() {
+        return this.maxNanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,256 @@
+package org.duke.server;
+
+import org.duke.DukeException;
+import org.duke.TaskStore;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves Duke to many users at once, over a line-based TCP protocol.
+ *
+ * Each connection gets its own Duke session, and every session shares one task store.
+ * Sessions cannot run {@code export} or {@code import}, which would read and write files as the server.
+ * Clients send one command per line, in UTF-8.
+ * Each reply is sent as lines of UTF-8 text, and ended by an empty line;
+ * an empty line within a reply is sent as a single space instead.
+ *
+ * One thread multiplexes every connection through a {@link Selector},
+ * so an idle connection costs no thread, and only a little memory.
+ * Commands from all sessions run one at a time on a single command thread, in the order they arrive.
+ * {@link org.duke.TaskStorage} could take commands from several threads at once, but the paged store
+ * cannot, and one thread also keeps each session's commands, and their replies, in the order sent.
+ */
+public class DukeServer implements AutoCloseable {
+    private static final String DEFAULT_HOST = "127.0.0.1";
+    private static final int DEFAULT_PORT = 4040;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final TaskStore taskStorage;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService commandExecutor;
+    //Sessions with replies to write, queued by the command thread for the selector thread.
+    private final ConcurrentLinkedQueue<SessionIO> writable = new ConcurrentLinkedQueue<>();
+    //Shared by every connection, as reads only happen on the selector thread.
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean running = true;
+
+    /**
+     * Opens a server socket at the given address. Connections are only accepted once {@link #serve()} is called.
+     *
+     * @param taskStorage Task store shared by every session, which the server closes once it stops
+     * @param address     Address to listen at
+     * @throws IOException If the address cannot be listened at
+     */
+    public DukeServer(TaskStore taskStorage, InetSocketAddress address) throws IOException {
+        this.taskStorage = taskStorage;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        this.commandExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "duke-commands"));
+    }
+
+    public static void main(String[] args) {
+        String host = DEFAULT_HOST;
+        int port = DEFAULT_PORT;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--host") && i + 1 < args.length) {
+                    host = args[++i];
+                } else if (args[i].equals("--port") && i + 1 < args.length) {
+                    port = Integer.parseInt(args[++i]);
+                } else {
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Usage: duke-server [--host <address>] [--port <port>]");
+            System.exit(2);
+        }
+
+        try (DukeServer server = new DukeServer(TaskStore.load(), new InetSocketAddress(host, port))) {
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            System.out.println(String.format("Duke is listening on %s", server.getAddress()));
+            server.serve();
+        } catch (IOException | DukeException e) {
+            System.err.println(String.format("Unable to run server: %s", e.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the address the server is listening at, which tells the port chosen if port 0 was asked for.
+     *
+     * @return Listening address
+     */
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) this.serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            throw new DukeException(e);
+        }
+    }
+
+    /**
+     * Accepts connections and serves them, until the server is closed.
+     * Once closed, every connection is dropped, and the task store is saved and closed.
+     *
+     * @throws IOException If the server socket fails
+     */
+    public void serve() throws IOException {
+        try {
+            while (this.running) {
+                this.selector.select();
+                SessionIO session;
+                while ((session = this.writable.poll()) != null) {
+                    SelectionKey key = session.getKey();
+                    if (key.isValid()) {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                }
+
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        this.accept();
+                        continue;
+                    }
+                    try {
+                        if (key.isReadable()) {
+                            this.read(key);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            this.write(key);
+                        }
+                    } catch (IOException e) {
+                        //Only this connection failed, so drop it and carry on.
+                        this.disconnect(key);
+                    }
+                }
+            }
+        } finally {
+            this.shutdown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = this.serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+            SessionIO session = new SessionIO(this, key);
+            key.attach(session);
+            this.commandExecutor.execute(() -> session.start(this.taskStorage));
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SessionIO session = (SessionIO) key.attachment();
+        this.readBuffer.clear();
+        int count = ((SocketChannel) key.channel()).read(this.readBuffer);
+        if (count < 0) {
+            //The client is done sending, but may still be waiting on replies.
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            this.commandExecutor.execute(session::finish);
+            return;
+        }
+        this.readBuffer.flip();
+        List<String> lines = session.receive(this.readBuffer);
+        for (String line : lines) {
+            this.commandExecutor.execute(() -> session.handle(line));
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        SessionIO session = (SessionIO) key.attachment();
+        if (!session.writeTo((SocketChannel) key.channel())) {
+            return;
+        }
+        if (session.isFinished()) {
+            this.disconnect(key);
+        } else {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            //Nothing more can be done for this connection.
+        }
+        SessionIO session = (SessionIO) key.attachment();
+        if (session != null) {
+            this.commandExecutor.execute(session::finish);
+        }
+    }
+
+    /**
+     * Asks the selector thread to write out a session's replies.
+     * Called from the command thread.
+     *
+     * @param session Session with replies waiting
+     */
+    void wantWrite(SessionIO session) {
+        this.writable.add(session);
+        this.selector.wakeup();
+    }
+
+    private void shutdown() throws IOException {
+        try {
+            for (SelectionKey key : this.selector.keys()) {
+                key.channel().close();
+            }
+            this.selector.close();
+            this.commandExecutor.shutdown();
+            this.commandExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            this.taskStorage.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.stopped.countDown();
+        }
+    }
+
+    /**
+     * Stops serving, and waits for the task store to be saved, if {@link #serve()} was running.
+     */
+    @Override
+    public void close() {
+        boolean wasRunning = this.running;
+        this.running = false;
+        if (!wasRunning || !this.selector.isOpen()) {
+            return;
+        }
+        this.selector.wakeup();
+        try {
+            this.stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.duke.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Puts a {@link DukeServer} under load, and reports how quickly it replies.
+ *
+ * Holds many idle connections open, while a few active clients each send a mix of commands
+ * and wait for every reply before sending the next.
+ * The commands add tasks, so point it at a server working on tasks that can be thrown away.
+ */
+public class LoadGenerator {
+    private static final String[] WORDS = {"read", "book", "call", "mom", "fix", "bike", "buy", "milk"};
+
+    private final InetSocketAddress address;
+    private final int commands;
+
+    private LoadGenerator(InetSocketAddress address, int commands) {
+        this.address = address;
+        this.commands = commands;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "127.0.0.1";
+        int port = 4040;
+        int clients = 8;
+        int idle = 1000;
+        int commands = 1000;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException(args[i]);
+                }
+                switch (args[i]) {
+                case "--host":
+                    host = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[++i]);
+                    break;
+                case "--idle":
+                    idle = Integer.parseInt(args[++i]);
+                    break;
+                case "--commands":
+                    commands = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Usage: duke-load [--host <address>] [--port <port>] [--clients <count>]"
+                    + " [--idle <count>] [--commands <count per client>]");
+            System.exit(2);
+        }
+
+        LoadGenerator generator = new LoadGenerator(new InetSocketAddress(host, port), commands);
+        List<SocketChannel> idleConnections = new ArrayList<>(idle);
+        try {
+            for (int i = 0; i < idle; i++) {
+                idleConnections.add(SocketChannel.open(generator.address));
+            }
+            System.out.println(String.format("Holding %d idle connections", idleConnections.size()));
+            generator.run(clients);
+        } finally {
+            for (SocketChannel connection : idleConnections) {
+                connection.close();
+            }
+        }
+    }
+
+    private void run(int clients) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            results.add(pool.submit(() -> this.runClient(client)));
+        }
+        long[] latencies = new long[clients * this.commands];
+        for (int i = 0; i < clients; i++) {
+            System.arraycopy(results.get(i).get(), 0, latencies, i * this.commands, this.commands);
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.println(String.format("%d commands from %d clients in %.2fs: %.0f commands/s",
+                latencies.length, clients, elapsed / 1e9, latencies.length / (elapsed / 1e9)));
+        System.out.println(String.format("Latency (ms): p50 %.3f, p90 %.3f, p99 %.3f, max %.3f",
+                percentile(latencies, 0.5), percentile(latencies, 0.9),
+                percentile(latencies, 0.99), percentile(latencies, 1.0)));
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private long[] runClient(int client) throws IOException {
+        Random random = new Random(client);
+        long[] latencies = new long[this.commands];
+        try (Socket socket = new Socket(this.address.getAddress(), this.address.getPort())) {
+            socket.setTcpNoDelay(true);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            readReply(reader);
+
+            for (int i = 0; i < this.commands; i++) {
+                String command = nextCommand(random, client, i);
+                long sent = System.nanoTime();
+                writer.write(command);
+                writer.write('\n');
+                writer.flush();
+                readReply(reader);
+                latencies[i] = System.nanoTime() - sent;
+            }
+            writer.write("bye\n");
+            writer.flush();
+        }
+        return latencies;
+    }
+
+    private static String nextCommand(Random random, int client, int i) {
+        int pick = random.nextInt(10);
+        String word = WORDS[random.nextInt(WORDS.length)];
+        if (pick < 4) {
+            return String.format("todo %s client%d %d", word, client, i);
+        } else if (pick < 7) {
+            return "list /count";
+        } else if (pick < 9) {
+            return String.format("find %s client%d", word, client);
+        }
+        return "list /page 1 /size 10";
+    }
+
+    private static void readReply(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            //Only the end of the reply matters.
+        }
+        if (line == null) {
+            throw new IOException("Server closed the connection");
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.duke.server;
+
+import org.duke.Duke;
+import org.duke.DukeException;
+import org.duke.TaskStore;
+import org.duke.cmd.CommandDispatcher;
+import org.duke.ui.DukeIO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * One connection to a {@link DukeServer}, acting as the Duke interface for its user.
+ *
+ * Input is split into lines on the selector thread, and each line is then run as a command
+ * on the command thread, which queues up the reply for the selector thread to write.
+ */
+class SessionIO implements DukeIO {
+    private static final int MAX_LINE_LENGTH = 1 << 16;
+    private static final int INITIAL_LINE_CAPACITY = 256;
+    //Line buffers grown past this are dropped once their line is done, so idle connections stay small.
+    private static final int RETAINED_LINE_CAPACITY = 4096;
+
+    private final DukeServer server;
+    private final SelectionKey key;
+
+    //Selector thread only.
+    private byte[] partialLine;
+    private int partialLength = 0;
+
+    //Command thread only.
+    private CommandDispatcher commandDispatcher;
+    private StringBuilder reply;
+    private boolean exited = false;
+
+    //Shared between threads, guarded by this.
+    private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+    private boolean finished = false;
+
+    /**
+     * Constructs a session for a newly accepted connection.
+     *
+     * @param server Server the connection was accepted by
+     * @param key    Selection key of the connection
+     */
+    SessionIO(DukeServer server, SelectionKey key) {
+        this.server = server;
+        this.key = key;
+    }
+
+    SelectionKey getKey() {
+        return this.key;
+    }
+
+    /**
+     * Greets the user. Run on the command thread.
+     *
+     * @param taskStorage Task store shared by every session
+     */
+    void start(TaskStore taskStorage) {
+        //Remote users must not reach files with the server's own access, so export and import are left out.
+        new Duke(this, taskStorage, false).run();
+    }
+
+    /**
+     * Runs a command line, and queues its reply. Run on the command thread.
+     *
+     * @param line Command line
+     */
+    void handle(String line) {
+        if (this.exited || this.commandDispatcher == null) {
+            return;
+        }
+        boolean shouldExit = this.withDialogBlock(() -> this.commandDispatcher.dispatchCommand(line), false);
+        if (shouldExit) {
+            this.exited = true;
+            this.finish();
+        }
+    }
+
+    /**
+     * Marks the session finished, so the connection is closed once every queued reply has been written.
+     * Run on the command thread, after the commands already received.
+     */
+    void finish() {
+        synchronized (this) {
+            this.finished = true;
+        }
+        this.server.wantWrite(this);
+    }
+
+    synchronized boolean isFinished() {
+        return this.finished && this.output.isEmpty();
+    }
+
+    /**
+     * Splits received bytes into lines. Run on the selector thread.
+     * The end of a line not yet complete is kept until the rest of it arrives.
+     *
+     * @param input Bytes received
+     * @return Complete lines received, without line endings
+     * @throws IOException If a line is too long to be a command
+     */
+    List<String> receive(ByteBuffer input) throws IOException {
+        List<String> lines = Collections.emptyList();
+        while (input.hasRemaining()) {
+            int start = input.position();
+            int end = start;
+            while (end < input.limit() && input.get(end) != '\n') {
+                end++;
+            }
+            this.appendPartial(input, start, end);
+            if (end == input.limit()) {
+                input.position(end);
+                break;
+            }
+            input.position(end + 1);
+
+            int length = this.partialLength;
+            if (length > 0 && this.partialLine[length - 1] == '\r') {
+                length--;
+            }
+            if (lines.isEmpty()) {
+                lines = new ArrayList<>();
+            }
+            lines.add(new String(this.partialLine, 0, length, StandardCharsets.UTF_8));
+            this.partialLength = 0;
+            if (this.partialLine.length > RETAINED_LINE_CAPACITY) {
+                this.partialLine = null;
+            }
+        }
+        return lines;
+    }
+
+    private void appendPartial(ByteBuffer input, int start, int end) throws IOException {
+        int count = end - start;
+        if (this.partialLength + count > MAX_LINE_LENGTH) {
+            throw new IOException("Line too long");
+        }
+        if (this.partialLine == null) {
+            this.partialLine = new byte[Math.max(INITIAL_LINE_CAPACITY, count)];
+        } else if (this.partialLength + count > this.partialLine.length) {
+            this.partialLine = Arrays.copyOf(this.partialLine,
+                    Math.max(this.partialLine.length * 2, this.partialLength + count));
+        }
+        input.position(start);
+        input.get(this.partialLine, this.partialLength, count);
+        this.partialLength += count;
+    }
+
+    /**
+     * Writes out as much of the queued replies as the connection will take. Run on the selector thread.
+     *
+     * @param channel Connection to write to
+     * @return Whether every queued reply was written
+     * @throws IOException If the connection fails
+     */
+    synchronized boolean writeTo(SocketChannel channel) throws IOException {
+        while (!this.output.isEmpty()) {
+            ByteBuffer buffer = this.output.peek();
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                return false;
+            }
+            this.output.poll();
+        }
+        return true;
+    }
+
+    private void send(String text) {
+        synchronized (this) {
+            if (this.finished) {
+                return;
+            }
+            this.output.add(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        }
+        this.server.wantWrite(this);
+    }
+
+    @Override
+    public void say(Iterator<String> lines) {
+        while (lines.hasNext()) {
+            String line = lines.next();
+            //An empty line would end the reply early.
+            this.reply.append(line.isEmpty() ? " " : line).append('\n');
+        }
+    }
+
+    @Override
+    public <T> T withDialogBlock(Supplier<T> action, T fallback) {
+        this.reply = new StringBuilder();
+        try {
+            return action.get();
+        } catch (DukeException e) {
+            this.sayError(e);
+            return fallback;
+        } catch (RuntimeException e) {
+            //Other sessions must carry on, so a failed command only ends its own reply.
+            this.sayError(new DukeException(e));
+            return fallback;
+        } finally {
+            this.send(this.reply.append('\n').toString());
+            this.reply = null;
+        }
+    }
+
+    /**
+     * Does nothing, as the server reads the connection, and hands each line to {@link #handle(String)}.
+     */
+    @Override
+    public void listen() {
+    }
+
+    @Override
+    public void setCommandDispatcher(CommandDispatcher commandDispatcher) {
+        this.commandDispatcher = commandDispatcher;
+    }
+}
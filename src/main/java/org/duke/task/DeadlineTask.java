@@ -5,8 +5,6 @@ import org.duke.util.DateParser;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.FormatStyle;
-import java.util.Map;
 
 
 /**
@@ -26,10 +24,28 @@ public class DeadlineTask extends Task {
         this.deadline = DateParser.parse(deadline);
     }
 
-    DeadlineTask(Map<String, Object> dict) {
-        super(dict);
+    DeadlineTask(String task, boolean completed, LocalDateTime deadline) {
+        this(task, completed, 0, deadline);
+    }
+
+    DeadlineTask(String task, boolean completed, long id, LocalDateTime deadline) {
+        super(task, completed, id);
+        this.deadline = deadline;
+    }
+
+    DeadlineTask(TaskType.Fields fields) {
+        super(fields);
         this.deadline = DateTimeFormatter.ISO_LOCAL_DATE_TIME
-                .parse((String) dict.get("deadline"), LocalDateTime::from);
+                .parse(fields.deadline, LocalDateTime::from);
+    }
+
+    public LocalDateTime getDeadline() {
+        return this.deadline;
+    }
+
+    @Override
+    protected Task copy(long id, boolean completed) {
+        return new DeadlineTask(this.getDescription(), completed, id, this.deadline);
     }
 
     @Override
@@ -39,9 +55,7 @@ public class DeadlineTask extends Task {
 
     @Override
     public String toString() {
-        String baseDescription = super.toString();
-        return String.format("%s (by: %s)", baseDescription,
-                DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).format(deadline));
+        return super.toString() + " (by: " + displayTimeFormat.format(this.deadline) + ")";
     }
 
     @Override
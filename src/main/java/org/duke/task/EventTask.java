@@ -5,8 +5,6 @@ import org.duke.util.DateParser;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.FormatStyle;
-import java.util.Map;
 
 /**
  * Represents a event task, with a start timing attached.
@@ -25,10 +23,28 @@ public class EventTask extends Task {
         this.timing = DateParser.parse(timing);
     }
 
-    EventTask(Map<String, Object> dict) {
-        super(dict);
+    EventTask(String task, boolean completed, LocalDateTime timing) {
+        this(task, completed, 0, timing);
+    }
+
+    EventTask(String task, boolean completed, long id, LocalDateTime timing) {
+        super(task, completed, id);
+        this.timing = timing;
+    }
+
+    EventTask(TaskType.Fields fields) {
+        super(fields);
         this.timing = DateTimeFormatter.ISO_LOCAL_DATE_TIME
-                .parse((String) dict.get("timing"), LocalDateTime::from);
+                .parse(fields.timing, LocalDateTime::from);
+    }
+
+    public LocalDateTime getTiming() {
+        return this.timing;
+    }
+
+    @Override
+    protected Task copy(long id, boolean completed) {
+        return new EventTask(this.getDescription(), completed, id, this.timing);
     }
 
     @Override
@@ -38,9 +54,7 @@ public class EventTask extends Task {
 
     @Override
     public String toString() {
-        String baseDescription = super.toString();
-        return String.format("%s (at: %s)", baseDescription,
-                DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).format(timing));
+        return super.toString() + " (at: " + displayTimeFormat.format(this.timing) + ")";
     }
 
     @Override
@@ -1,53 +1,87 @@
 package org.duke.task;
 
 import org.duke.DukeException;
+import org.duke.json.Encodable;
 import org.duke.json.JsonWriter;
-import org.duke.json.Registry;
 
-import java.util.Map;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+
 
 /**
  * Represents a basic To-Do Task.
+ *
+ * Tasks never change: giving one an id or completing it makes a copy,
+ * so a list of tasks handed to another thread stays as it was.
  */
-public class Task {
+public class Task implements Encodable {
     private static final String completedMarker = "[✓]";
     private static final String incompleteMarker = "[✗]";
-
-    static {
-        Registry.register(Task.class, Task::serialize);
-    }
+    //Shared by subtypes, as building a localized formatter for every task listed adds up.
+    static final DateTimeFormatter displayTimeFormat = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
 
     private final String description;
-    private boolean completed;
+    private final boolean completed;
+    private final long id;
 
     public Task(String description) {
         this(description, false);
     }
 
-    private Task(String description, boolean completed) {
+    Task(String description, boolean completed) {
+        this(description, completed, 0);
+    }
+
+    Task(String description, boolean completed, long id) {
         if (description == null || description.isEmpty()) {
             String message = String.format("The description of a %s cannot be empty.", this.getTaskType());
             throw new DukeException(message);
         }
         this.description = description;
         this.completed = completed;
+        this.id = id;
     }
 
-    Task(Map<String, Object> dict) {
-        this((String) dict.get("description"),
-                (Boolean) dict.getOrDefault("completed", false));
+    Task(TaskType.Fields fields) {
+        this(fields.description, fields.completed, fields.id);
     }
 
-    public static void serialize(JsonWriter.ValueContext ctx, Task value) {
-        ctx.writeObject(value::toJson);
+    @Override
+    public void encode(JsonWriter.ValueContext ctx) {
+        ctx.writeObject(this::toJson);
     }
 
 
     /**
-     * Mark this task as completed.
+     * Copies this task, of the same type and with the same details, but the given id and completion.
+     * Subtypes with details of their own override this to copy them.
+     *
+     * @param id        Id of copy
+     * @param completed Whether the copy is completed
+     * @return Copy of this task
+     */
+    protected Task copy(long id, boolean completed) {
+        return new Task(this.description, completed, id);
+    }
+
+    /**
+     * Returns a completed copy of this task, leaving this task as it is.
+     *
+     * @return Completed task, which is this task if it was already completed
      */
-    public void markComplete() {
-        this.completed = true;
+    public Task completedCopy() {
+        return this.completed ? this : this.copy(this.id, true);
+    }
+
+    /**
+     * Returns a copy of this task with the given id, leaving this task as it is.
+     * Only task stores should call this, when the task is added.
+     *
+     * @param id Positive id, unique within the store
+     * @return Task with the id, which is this task if it already had it
+     */
+    public Task withId(long id) {
+        return this.id == id ? this : this.copy(id, this.completed);
     }
 
     /**
@@ -63,6 +97,16 @@ public class Task {
         return this.description;
     }
 
+    /**
+     * Returns the id this task was given when added to a task store.
+     * Unlike its index, a task's id does not change as other tasks are removed.
+     *
+     * @return Id of task, or 0 if it has not been given one.
+     */
+    public long getId() {
+        return this.id;
+    }
+
     protected String getTypeMarker() {
         return getTaskType().getMarker();
     }
@@ -77,14 +121,14 @@ public class Task {
 
     @Override
     public String toString() {
-        return String.format("[%s]%s %s",
-                this.getTypeMarker(),
-                this.getCompleteMarker(),
-                this.description);
+        return "[" + this.getTypeMarker() + "]" + this.getCompleteMarker() + " " + this.description;
     }
 
     protected void toJson(JsonWriter.ObjectContext ctx) {
-        ctx.writeField("type", this.getTaskType());
+        if (this.id != 0) {
+            ctx.writeField("id", this.id);
+        }
+        ctx.writeField("type", this.getTaskType().name());
         ctx.writeField("description", this.description);
         ctx.writeField("completed", this.completed);
     }
@@ -0,0 +1,222 @@
+package org.duke.task;
+
+import org.duke.DukeException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of task lists.
+ *
+ * A snapshot is a header, the number of tasks, then each task as:
+ * a type tag byte, a flags byte, the task's id, the description as a length-prefixed UTF-8 string,
+ * and for deadlines and events, their time as seconds and nanoseconds since the epoch.
+ * All lengths and numbers are written as variable-length integers.
+ * Version 1 snapshots, written before tasks had ids, can still be read.
+ */
+public final class TaskCodec {
+    private static final byte[] MAGIC = {'D', 'U', 'K', 'E'};
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_IDS = 1;
+    private static final int FLAG_COMPLETED = 1;
+    private static final TaskType[] types = TaskType.values();
+
+    private final OutputStream out;
+    private final boolean hasIds;
+    private byte[] scratch = new byte[256];
+
+    private TaskCodec(OutputStream out) {
+        this(out, true);
+    }
+
+    private TaskCodec(OutputStream out, boolean hasIds) {
+        this.out = out;
+        this.hasIds = hasIds;
+    }
+
+    /**
+     * Writes a task list as a binary snapshot.
+     *
+     * @param tasks Tasks to write
+     * @param out   Output stream, which should be buffered
+     * @throws IOException If the output cannot be written
+     */
+    public static void write(List<Task> tasks, OutputStream out) throws IOException {
+        TaskCodec codec = new TaskCodec(out);
+        out.write(MAGIC);
+        codec.writeVarint(VERSION);
+        codec.writeVarint(tasks.size());
+        for (Task task : tasks) {
+            codec.writeTask(task);
+        }
+    }
+
+    /**
+     * Reads a task list back from a binary snapshot.
+     *
+     * @param in Snapshot bytes, from the buffer's position up til its limit
+     * @return Decoded tasks
+     */
+    public static ArrayList<Task> read(ByteBuffer in) {
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new DukeException("Not a Duke binary snapshot");
+                }
+            }
+            long version = readVarint(in);
+            if (version != VERSION && version != VERSION_WITHOUT_IDS) {
+                throw new DukeException(String.format("Unsupported snapshot version %d", version));
+            }
+            int count = readLength(in);
+            ArrayList<Task> tasks = new ArrayList<>(count);
+            TaskCodec codec = new TaskCodec(null, version != VERSION_WITHOUT_IDS);
+            for (int i = 0; i < count; i++) {
+                tasks.add(codec.readTask(in));
+            }
+            return tasks;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new DukeException("Binary snapshot is truncated or corrupt", e);
+        }
+    }
+
+    /**
+     * Writes a single task, in the same encoding as each task of a snapshot.
+     *
+     * @param task Task to write
+     * @param out  Output stream
+     * @throws IOException If the output cannot be written
+     */
+    public static void encode(Task task, OutputStream out) throws IOException {
+        new TaskCodec(out).writeTask(task);
+    }
+
+    /**
+     * Reads back a single task written by {@link #encode(Task, OutputStream)}.
+     *
+     * @param in Encoded task, read from the buffer's position
+     * @return Decoded task
+     */
+    public static Task decode(ByteBuffer in) {
+        return decode(in, VERSION);
+    }
+
+    /**
+     * Reads back a single task written in the encoding of the given snapshot version.
+     *
+     * @param in      Encoded task, read from the buffer's position
+     * @param version Snapshot version the task was encoded in
+     * @return Decoded task, without an id if the version predates them
+     */
+    public static Task decode(ByteBuffer in, int version) {
+        if (version != VERSION && version != VERSION_WITHOUT_IDS) {
+            throw new DukeException(String.format("Unsupported snapshot version %d", version));
+        }
+        try {
+            return new TaskCodec(null, version != VERSION_WITHOUT_IDS).readTask(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new DukeException("Encoded task is truncated or corrupt", e);
+        }
+    }
+
+    private Task readTask(ByteBuffer in) {
+        TaskType type = types[in.get()];
+        boolean completed = (in.get() & FLAG_COMPLETED) != 0;
+        long id = this.hasIds ? readVarint(in) : 0;
+        int length = readLength(in);
+        if (length > this.scratch.length) {
+            this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+        }
+        in.get(this.scratch, 0, length);
+        String description = new String(this.scratch, 0, length, StandardCharsets.UTF_8);
+        Task task;
+        switch (type) {
+        case Deadline:
+            task = new DeadlineTask(description, completed, id, readDateTime(in));
+            break;
+        case Event:
+            task = new EventTask(description, completed, id, readDateTime(in));
+            break;
+        default:
+            task = new Task(description, completed, id);
+            break;
+        }
+        return task;
+    }
+
+    private void writeTask(Task task) throws IOException {
+        TaskType type = task.getTaskType();
+        this.out.write(type.ordinal());
+        this.out.write(task.isCompleted() ? FLAG_COMPLETED : 0);
+        this.writeVarint(task.getId());
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        this.writeVarint(description.length);
+        this.out.write(description);
+        switch (type) {
+        case Deadline:
+            this.writeDateTime(((DeadlineTask) task).getDeadline());
+            break;
+        case Event:
+            this.writeDateTime(((EventTask) task).getTiming());
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void writeDateTime(LocalDateTime time) throws IOException {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        //Zig-zag encode, so times before the epoch stay short.
+        this.writeVarint((seconds << 1) ^ (seconds >> 63));
+        this.writeVarint(time.getNano());
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        long zigzag = readVarint(in);
+        long seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+        int nanos = (int) readVarint(in);
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            this.out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        this.out.write((int) value);
+    }
+
+    /**
+     * Reads a length or count, which cannot be more than the bytes left, as each item takes at least one.
+     */
+    private static int readLength(ByteBuffer in) {
+        long length = readVarint(in);
+        if (length < 0 || length > in.remaining()) {
+            //Reported like any other read past the end, rather than allocating for it.
+            throw new BufferUnderflowException();
+        }
+        return (int) length;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new DukeException("Malformed variable-length integer in snapshot");
+    }
+}
@@ -1,9 +1,9 @@
 package org.duke.task;
 
 import org.duke.json.ObjectHandler;
+import org.duke.json.Receiver;
 import org.duke.json.ValueHandler;
 
-import java.util.Map;
 import java.util.function.Function;
 
 /**
@@ -16,10 +16,10 @@ public enum TaskType {
 
 
     private final String marker;
-    private final Function<Map<String, Object>, ? extends Task> jsonConstructor;
+    private final Function<Fields, ? extends Task> jsonConstructor;
 
     TaskType(String marker,
-             Function<Map<String, Object>, ? extends Task> jsonConstructor) {
+             Function<Fields, ? extends Task> jsonConstructor) {
         this.marker = marker;
         this.jsonConstructor = jsonConstructor;
     }
@@ -51,11 +51,50 @@ public enum TaskType {
 
     public static class Builder implements ValueHandler<Task> {
         public ObjectHandler<Task> handleObject() {
-            return ObjectHandler.DictValue.basicDict().map(dict -> {
-                String typeString = dict.getOrDefault("type", "ToDo").toString();
-                TaskType type = TaskType.fromString(typeString);
-                return type.jsonConstructor.apply(dict);
-            });
+            return new Fields();
+        }
+    }
+
+    /**
+     * Collects the fields of a JSON task object, then constructs the task of the type given.
+     *
+     * Only the fields some task type uses are decoded; any others are skipped.
+     */
+    static class Fields implements ObjectHandler<Task> {
+        long id = 0;
+        String type = "ToDo";
+        String description;
+        boolean completed = false;
+        String deadline;
+        String timing;
+
+        public void handleField(String name, Receiver receiver) {
+            switch (name) {
+            case "id":
+                this.id = receiver.receiveLong();
+                break;
+            case "type":
+                this.type = receiver.receiveString();
+                break;
+            case "description":
+                this.description = receiver.receiveString();
+                break;
+            case "completed":
+                this.completed = receiver.receiveBoolean();
+                break;
+            case "deadline":
+                this.deadline = receiver.receiveString();
+                break;
+            case "timing":
+                this.timing = receiver.receiveString();
+                break;
+            default:
+                break;
+            }
+        }
+
+        public Task handleEnd() {
+            return TaskType.fromString(this.type).jsonConstructor.apply(this);
         }
     }
 }
@@ -4,27 +4,51 @@ import org.duke.Duke;
 import org.duke.DukeException;
 import org.duke.cmd.CommandDispatcher;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Iterator;
-import java.util.Scanner;
 import java.util.function.Supplier;
 
 /**
  * CLI interface for Duke, wrapping standard input and output.
+ *
+ * Run with {@code --batch <file>} to execute the commands in a file instead,
+ * and with {@code --quiet} to only print errors.
  */
 public class DukeConsoleIO implements DukeIO {
 
     private static final String lineRule =
             "____________________________________________________________";
+    private static final int BUFFER_SIZE = 1 << 16;
 
-    private final Scanner scanner;
+    private final BufferedReader reader;
+    private final PrintWriter writer;
+    private final boolean interactive;
+    private final boolean quiet;
     private CommandDispatcher commandDispatcher;
     private boolean printingDialogBlock;
+    private long lineNumber = 0;
 
     /**
-     * Constructs a DukeIO instance wrapping standard input.
+     * Constructs a DukeIO instance reading commands from the given input.
+     *
+     * @param reader      Command input
+     * @param writer      Output, flushed after each reply if interactive
+     * @param interactive Whether a user is waiting on each reply
+     * @param quiet       Whether to print only errors
      */
-    private DukeConsoleIO() {
-        this.scanner = new Scanner(System.in);
+    private DukeConsoleIO(BufferedReader reader, PrintWriter writer, boolean interactive, boolean quiet) {
+        this.reader = reader;
+        this.writer = writer;
+        this.interactive = interactive;
+        this.quiet = quiet;
     }
 
     /**
@@ -34,16 +58,33 @@ public class DukeConsoleIO implements DukeIO {
      */
     @Override
     public void say(Iterator<String> lines) {
+        if (this.quiet) {
+            return;
+        }
+        this.print(lines);
+    }
+
+    private void print(Iterator<String> lines) {
         if (!this.printingDialogBlock) {
             //Print start of reply line
-            System.out.println(lineRule);
+            this.writer.println(lineRule);
             this.printingDialogBlock = true;
         }
 
         //Print each given line
         while (lines.hasNext()) {
-            System.out.println(lines.next());
+            this.writer.println(lines.next());
+        }
+    }
+
+    @Override
+    public void sayError(DukeException e) {
+        if (!this.quiet) {
+            DukeIO.super.sayError(e);
+            return;
         }
+        //Errors are never suppressed, but say which line caused them.
+        this.writer.println(String.format("Line %d: ☹ OOPS!!! %s", this.lineNumber, e.getMessage()));
     }
 
     @Override
@@ -57,17 +98,47 @@ public class DukeConsoleIO implements DukeIO {
         } finally {
             if (this.printingDialogBlock) {
                 //Print end of reply line, and extra empty line
-                System.out.println(lineRule);
-                System.out.println();
+                this.writer.println(lineRule);
+                this.writer.println();
+            }
+            if (this.interactive) {
+                this.writer.flush();
             }
         }
     }
 
     public static void main(String[] args) {
-        DukeConsoleIO io = new DukeConsoleIO();
+        String batchFile = null;
+        boolean quiet = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch") && i + 1 < args.length) {
+                batchFile = args[++i];
+            } else if (args[i].equals("--quiet")) {
+                quiet = true;
+            } else {
+                System.err.println("Usage: duke [--batch <file>] [--quiet]");
+                System.exit(2);
+            }
+        }
+
+        BufferedReader reader;
+        try {
+            reader = batchFile == null
+                    ? new BufferedReader(new InputStreamReader(System.in))
+                    : new BufferedReader(Files.newBufferedReader(Paths.get(batchFile), StandardCharsets.UTF_8),
+                    BUFFER_SIZE);
+        } catch (IOException e) {
+            System.err.println(String.format("Unable to read %s: %s", batchFile, e.getMessage()));
+            System.exit(1);
+            return;
+        }
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE));
+
+        DukeConsoleIO io = new DukeConsoleIO(reader, writer, batchFile == null, quiet);
         Duke duke = new Duke(io);
         duke.run();
-        duke.save();
+        duke.close();
+        writer.flush();
     }
 
     /**
@@ -80,14 +151,23 @@ public class DukeConsoleIO implements DukeIO {
             return;
         }
         //While there is still input from user
-        while (scanner.hasNextLine()) {
-            //Read single line of user input, and remove extra spaces
-            String userInput = scanner.nextLine();
+        while (true) {
+            String userInput;
+            try {
+                userInput = this.reader.readLine();
+            } catch (IOException e) {
+                this.withDialogBlock(() -> this.sayError(new DukeException("Unable to read input", e)));
+                return;
+            }
+            if (userInput == null) {
+                return;
+            }
+            this.lineNumber++;
             boolean shouldExit = this.withDialogBlock(
                     () -> commandDispatcher.dispatchCommand(userInput),
                     false);
             if (shouldExit) {
-               break;
+                return;
             }
         }
     }
@@ -0,0 +1,144 @@
+package org.duke.ui.javafx;
+
+import javafx.collections.ObservableListBase;
+import org.duke.DukeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every line of the conversation so far, as a list a {@link javafx.scene.control.ListView} can show.
+ *
+ * Only the most recent lines are kept in memory, as many as the {@code duke.ui.history}
+ * system property says (2000 by default).
+ * Older lines are written out to a temporary file, and read back as they are scrolled to,
+ * keeping a few of them around in case they are shown again.
+ * Must only be used from the JavaFX application thread.
+ */
+class ConversationLog extends ObservableListBase<LogLine> {
+    private static final String HISTORY_PROPERTY = "duke.ui.history";
+    private static final int CACHED_LINES = 256;
+
+    //Lines not yet spilled, in a ring indexed by line number.
+    private final LogLine[] retained;
+    private int size = 0;
+    //Lines before this one have been written to the spill file.
+    private int spilled = 0;
+    //Offset of each spilled line in the spill file.
+    private long[] offsets = new long[1024];
+    private long spillLength = 0;
+    private RandomAccessFile spill;
+    private final Map<Integer, LogLine> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, LogLine> eldest) {
+            return this.size() > CACHED_LINES;
+        }
+    };
+
+    ConversationLog() {
+        this(Integer.getInteger(HISTORY_PROPERTY, 2000));
+    }
+
+    /**
+     * Constructs an empty log.
+     *
+     * @param capacity Number of lines to keep in memory
+     */
+    ConversationLog(int capacity) {
+        this.retained = new LogLine[Math.max(1, capacity)];
+    }
+
+    @Override
+    public LogLine get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for length %d",
+                    index, this.size));
+        }
+        if (index >= this.spilled) {
+            return this.retained[index % this.retained.length];
+        }
+        LogLine line = this.cache.get(index);
+        if (line == null) {
+            line = this.readSpilled(index);
+            this.cache.put(index, line);
+        }
+        return line;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds lines to the end of the log, spilling the oldest lines kept in memory to make room.
+     *
+     * @param lines Lines to add
+     */
+    void append(List<LogLine> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        int from = this.size;
+        //Lines spilled by this append are written out together.
+        ByteArrayOutputStream spilledBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(spilledBytes);
+        try {
+            for (LogLine line : lines) {
+                if (this.size - this.spilled == this.retained.length) {
+                    int slot = this.spilled % this.retained.length;
+                    if (this.spilled == this.offsets.length) {
+                        this.offsets = Arrays.copyOf(this.offsets, this.spilled * 2);
+                    }
+                    this.offsets[this.spilled++] = this.spillLength + out.size();
+                    this.retained[slot].write(out);
+                    this.retained[slot] = null;
+                }
+                this.retained[this.size++ % this.retained.length] = line;
+            }
+            if (out.size() > 0) {
+                this.writeSpilled(spilledBytes.toByteArray());
+            }
+        } catch (IOException e) {
+            throw new DukeException("Unable to save conversation history", e);
+        }
+
+        this.beginChange();
+        this.nextAdd(from, this.size);
+        this.endChange();
+    }
+
+    private void writeSpilled(byte[] bytes) throws IOException {
+        if (this.spill == null) {
+            Path path = Files.createTempFile("duke-log", ".bin");
+            path.toFile().deleteOnExit();
+            this.spill = new RandomAccessFile(path.toFile(), "rw");
+        }
+        this.spill.seek(this.spillLength);
+        this.spill.write(bytes);
+        this.spillLength += bytes.length;
+    }
+
+    private LogLine readSpilled(int index) {
+        long start = this.offsets[index];
+        long end = index + 1 < this.spilled ? this.offsets[index + 1] : this.spillLength;
+        byte[] bytes = new byte[(int) (end - start)];
+        try {
+            this.spill.seek(start);
+            this.spill.readFully(bytes);
+            return LogLine.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new DukeException("Unable to read conversation history", e);
+        }
+    }
+}
@@ -4,10 +4,7 @@ import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.geometry.Insets;
-import javafx.scene.Node;
 import javafx.scene.Scene;
-import javafx.scene.control.Label;
 import javafx.scene.layout.Border;
 import javafx.scene.layout.BorderStroke;
 import javafx.scene.layout.BorderStrokeStyle;
@@ -15,14 +12,13 @@ import javafx.scene.layout.BorderWidths;
 import javafx.scene.layout.CornerRadii;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.scene.text.Text;
-import javafx.scene.text.TextFlow;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
 import javafx.util.Duration;
 import org.duke.Duke;
 import org.duke.cmd.CommandDispatcher;
 import org.duke.cmd.Handler;
+import org.duke.cmd.HandlerInfo;
 import org.duke.ui.DukeIO;
 
 import java.util.ArrayList;
@@ -34,7 +30,6 @@ import java.util.function.Supplier;
 
 public class DukeFx extends Application {
 
-    public static final Duration SCROLL_DELAY = Duration.millis(200);
     private final DukeFxIO io = new DukeFxIO();
     public static final Font BASE_FONT = Font.font(20);
     public static final Font MONO_FONT = Font.font("monospace", 20);
@@ -76,7 +71,7 @@ public class DukeFx extends Application {
         private final ExecutorService dukeExecutor;
         private final Duke duke;
         private CommandDispatcher dispatcher;
-        private ArrayList<Node> dialogNodes;
+        private ArrayList<LogLine> dialogLines;
 
         DukeFxIO() {
             dukeExecutor = Executors.newSingleThreadExecutor();
@@ -85,7 +80,7 @@ public class DukeFx extends Application {
 
         void shutdown() {
             try {
-                dukeExecutor.submit(duke::save).get();
+                dukeExecutor.submit(duke::close).get();
             } catch (ExecutionException | InterruptedException e) {
                 e.printStackTrace();
             }
@@ -107,103 +102,88 @@ public class DukeFx extends Application {
             });
         }
 
+        /**
+         * Adds a line to the current dialog block, as the first line of its message if nothing came before.
+         */
+        private void addLine(LogLine.Span... spans) {
+            dialogLines.add(new LogLine(UserInfo.DUKE, dialogLines.isEmpty(), spans));
+        }
+
         @Override
         public void say(Iterator<String> lines) {
             while (lines.hasNext()) {
-                Label line = new Label(lines.next());
-                line.setFont(BASE_FONT);
-                dialogNodes.add(line);
+                addLine(new LogLine.Span(lines.next(), LogLine.Style.Plain));
             }
         }
 
         @Override
         public void sayBriefCommand(Handler handler) {
-            TextFlow desc = makeDescriptionLine(handler);
-            desc.setPadding(new Insets(5));
-            dialogNodes.add(desc);
+            addLine(makeDescriptionLine(handler));
         }
 
-        private TextFlow makeDescriptionLine(Handler handler) {
-            Text name = new Text(handler.getPrimaryBinding());
-            name.setFont(MONO_FONT);
-            Text desc = new Text(" - " + handler.getDescriptionText().value());
-            desc.setFont(BASE_FONT);
-            return new TextFlow(name, desc);
+        private LogLine.Span[] makeDescriptionLine(Handler handler) {
+            return new LogLine.Span[] {
+                    new LogLine.Span(handler.getPrimaryBinding(), LogLine.Style.Mono),
+                    new LogLine.Span(" - " + handler.getInfo().getDescription(), LogLine.Style.Plain)
+            };
         }
 
-        private Text makeArgumentNode(String text, boolean optional) {
-            Color color;
+        private LogLine.Span makeArgumentSpan(String text, boolean optional) {
             if (optional) {
-                text = " [" + text + "]";
-                color = Color.GREEN;
-            } else {
-                text = " <" + text + ">";
-                color = Color.BROWN;
+                return new LogLine.Span(" [" + text + "]", LogLine.Style.Optional);
             }
-            Text node = new Text(text);
-            node.setFont(MONO_FONT);
-            node.setFill(color);
-            return node;
+            return new LogLine.Span(" <" + text + ">", LogLine.Style.Required);
         }
 
         @Override
         public void sayCommand(Handler handler) {
-            dialogNodes.add(makeDescriptionLine(handler));
+            addLine(makeDescriptionLine(handler));
 
-            Text name = new Text(handler.getPrimaryBinding());
-            name.setFont(MONO_FONT);
-            TextFlow syntaxLine = new TextFlow(name);
+            ArrayList<LogLine.Span> syntaxLine = new ArrayList<>();
+            syntaxLine.add(new LogLine.Span(handler.getPrimaryBinding(), LogLine.Style.Mono));
 
-            if (!handler.getDescriptionText().argument().isEmpty()) {
-                String argDesc = handler.getDescriptionText().argument();
-                Text posArgument = makeArgumentNode(argDesc, handler.getDescriptionText().optional());
-                syntaxLine.getChildren().add(posArgument);
+            HandlerInfo info = handler.getInfo();
+            if (!info.getArgument().isEmpty()) {
+                syntaxLine.add(makeArgumentSpan(info.getArgument(), info.isArgumentOptional()));
             }
 
-            for (Handler.NamedArgument namedArgument : handler.getNamedArguments()) {
-                String argDesc = "/" + namedArgument.value() + " " + namedArgument.description();
-                syntaxLine.getChildren().add(makeArgumentNode(argDesc, true));
+            for (HandlerInfo.Argument namedArgument : info.getNamedArguments()) {
+                String argDesc = "/" + namedArgument.getName() + " " + namedArgument.getDescription();
+                syntaxLine.add(makeArgumentSpan(argDesc, true));
             }
 
-            dialogNodes.add(syntaxLine);
+            addLine(syntaxLine.toArray(new LogLine.Span[0]));
 
-            if (handler.getBindings().length > 1) {
+            if (info.getBindings().size() > 1) {
 
-                Text aliasPrefix = new Text("Aliases:");
-                aliasPrefix.setFont(BASE_FONT);
                 StringBuilder sb = new StringBuilder();
-                for (Handler.Binding bind : handler.getBindings()) {
-                    if (bind.value().equals(handler.getPrimaryBinding())) {
+                for (String bind : info.getBindings()) {
+                    if (bind.equals(info.getPrimaryBinding())) {
                         continue;
                     }
                     if (sb.length() > 0) {
                         sb.append(',');
                     }
-                    sb.append(' ').append(bind.value());
+                    sb.append(' ').append(bind);
                 }
 
-                Text aliases = new Text(sb.toString());
-                aliases.setFont(MONO_FONT);
-                TextFlow aliasLine = new TextFlow(aliasPrefix, aliases);
-                dialogNodes.add(aliasLine);
+                addLine(new LogLine.Span("Aliases:", LogLine.Style.Plain),
+                        new LogLine.Span(sb.toString(), LogLine.Style.Mono));
             }
         }
 
         @Override
         public <T> T withDialogBlock(Supplier<T> action, T fallback) {
             T ret = fallback;
-            dialogNodes = new ArrayList<>();
+            dialogLines = new ArrayList<>();
             try {
                 ret = action.get();
             } catch (Exception e) {
-                Label err = new Label(e.getMessage());
-                err.setFont(BASE_FONT);
-                err.setTextFill(Color.RED);
-                dialogNodes.add(err);
+                addLine(new LogLine.Span(String.valueOf(e.getMessage()), LogLine.Style.Error));
             }
-            ArrayList<Node> lines = dialogNodes;
-            dialogNodes = null;
-            Platform.runLater(() -> root.displayMessage(UserInfo.DUKE, lines));
+            ArrayList<LogLine> lines = dialogLines;
+            dialogLines = null;
+            Platform.runLater(() -> root.displayMessage(lines));
             return ret;
         }
 
@@ -1,24 +1,20 @@
 package org.duke.ui.javafx;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
-import javafx.animation.Timeline;
 import javafx.beans.property.Property;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
 import javafx.scene.control.Button;
-import javafx.scene.control.Label;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextArea;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.VBox;
 import org.duke.DukeException;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -26,10 +22,9 @@ public class DukeRootPane extends BorderPane {
 
     private final Property<Consumer<String>> inputHandler
             = new SimpleObjectProperty<>();
+    private final ConversationLog log = new ConversationLog();
     @FXML
-    private ScrollPane outputScroll;
-    @FXML
-    private VBox outputCol;
+    private ListView<LogLine> outputList;
     @FXML
     private Button submitButton;
     @FXML
@@ -53,11 +48,9 @@ public class DukeRootPane extends BorderPane {
             }
         });
 
-        //Bind auto-scroll of message pane
-        Timeline scrollAnim = new Timeline(60);
-        scrollAnim.getKeyFrames().add(new KeyFrame(DukeFx.SCROLL_DELAY,
-                new KeyValue(outputScroll.vvalueProperty(), 1)));
-        outputCol.heightProperty().addListener(obs -> scrollAnim.play());
+        //Cells are only made for the lines on screen, and reused as the log scrolls.
+        outputList.setItems(log);
+        outputList.setCellFactory(list -> new LogCell());
     }
 
     private void onSubmit() {
@@ -84,15 +77,39 @@ public class DukeRootPane extends BorderPane {
     }
 
     public void displayMessage(UserInfo user, String message) {
-        Label messageText = new Label(message);
-        messageText.setFont(DukeFx.BASE_FONT);
-        messageText.setAlignment(user.getAlignmentPosition());
-        displayMessage(user, List.of(messageText));
+        List<LogLine> lines = new ArrayList<>();
+        for (String line : message.split("\\R", -1)) {
+            lines.add(new LogLine(user, lines.isEmpty(), new LogLine.Span(line, LogLine.Style.Plain)));
+        }
+        displayMessage(lines);
+    }
+
+    /**
+     * Adds the lines of a message to the end of the conversation, and scrolls down to them.
+     *
+     * @param lines Lines of message
+     */
+    void displayMessage(List<LogLine> lines) {
+        log.append(lines);
+        outputList.scrollTo(log.size() - 1);
     }
 
-    public void displayMessage(UserInfo user, List<Node> nodes) {
-        VBox messageBody = new VBox(nodes.toArray(new Node[0]));
-        Message msg = new Message(user, messageBody);
-        outputCol.getChildren().add(msg);
+    /**
+     * Shows one line of the conversation log.
+     */
+    private static class LogCell extends ListCell<LogLine> {
+        private final Message message = new Message();
+
+        @Override
+        protected void updateItem(LogLine line, boolean empty) {
+            super.updateItem(line, empty);
+            setText(null);
+            if (empty || line == null) {
+                setGraphic(null);
+            } else {
+                message.show(line);
+                setGraphic(message);
+            }
+        }
     }
 }
@@ -0,0 +1,116 @@
+package org.duke.ui.javafx;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One line of the conversation log, as a run of styled text spans.
+ *
+ * Lines hold no JavaFX nodes, so the log can keep many of them cheaply,
+ * and write them out to disk once they scroll far enough back.
+ */
+class LogLine {
+    private static final UserInfo[] users = {UserInfo.DUKE, UserInfo.USER};
+
+    private final UserInfo user;
+    private final boolean first;
+    private final Span[] spans;
+
+    /**
+     * Constructs a line of a message.
+     *
+     * @param user  User the message is from
+     * @param first Whether this is the first line of its message
+     * @param spans Text of the line
+     */
+    LogLine(UserInfo user, boolean first, Span... spans) {
+        this.user = user;
+        this.first = first;
+        this.spans = spans;
+    }
+
+    UserInfo getUser() {
+        return this.user;
+    }
+
+    boolean isFirst() {
+        return this.first;
+    }
+
+    Span[] getSpans() {
+        return this.spans;
+    }
+
+    /**
+     * Writes the line out, to be read back by {@link #read(DataInput)}.
+     *
+     * @param out Output to write to
+     * @throws IOException If the output cannot be written
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeByte(this.user == UserInfo.USER ? 1 : 0);
+        out.writeBoolean(this.first);
+        out.writeInt(this.spans.length);
+        for (Span span : this.spans) {
+            //Not writeUTF, which cannot write strings over 64KB long.
+            byte[] text = span.text.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(span.style.ordinal());
+            out.writeInt(text.length);
+            out.write(text);
+        }
+    }
+
+    /**
+     * Reads back a line written by {@link #write(DataOutput)}.
+     *
+     * @param in Input to read from
+     * @return Line read
+     * @throws IOException If the input cannot be read
+     */
+    static LogLine read(DataInput in) throws IOException {
+        UserInfo user = users[in.readByte()];
+        boolean first = in.readBoolean();
+        Span[] spans = new Span[in.readInt()];
+        for (int i = 0; i < spans.length; i++) {
+            Style style = Style.values()[in.readByte()];
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            spans[i] = new Span(new String(text, StandardCharsets.UTF_8), style);
+        }
+        return new LogLine(user, first, spans);
+    }
+
+    /**
+     * Enumerates the ways a span of text can be shown.
+     */
+    enum Style {
+        Plain,
+        Mono,
+        Required,
+        Optional,
+        Error
+    }
+
+    /**
+     * A run of text in one style.
+     */
+    static class Span {
+        private final String text;
+        private final Style style;
+
+        Span(String text, Style style) {
+            this.text = text;
+            this.style = style;
+        }
+
+        String getText() {
+            return this.text;
+        }
+
+        Style getStyle() {
+            return this.style;
+        }
+    }
+}
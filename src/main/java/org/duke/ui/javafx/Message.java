@@ -1,52 +1,103 @@
 package org.duke.ui.javafx;
 
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.HPos;
-import javafx.geometry.Pos;
-import javafx.scene.Node;
+import javafx.geometry.Insets;
+import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.Label;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
-import org.duke.DukeException;
-
-import java.io.IOException;
+import javafx.scene.layout.Priority;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import javafx.scene.text.TextFlow;
 
+/**
+ * Shows one line of a message, with the sender's name and picture beside its first line.
+ *
+ * Built in code rather than from FXML, as the conversation log reuses a few of these
+ * for whichever lines are on screen, updating them as it scrolls.
+ */
 public class Message extends HBox {
-    @FXML
-    private Label userIcon;
+    private static final Insets FIRST_LINE_PADDING = new Insets(20, 10, 0, 10);
+    private static final Insets LINE_PADDING = new Insets(0, 10, 0, 10);
 
-    @FXML
-    private Node message;
+    private final Label userIcon = new Label();
+    private final ImageView userImage = new ImageView();
+    private final TextFlow text = new TextFlow();
+    private UserInfo user;
 
-    public Message(UserInfo user, Node message) {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("Message.fxml"));
-        loader.setRoot(this);
-        loader.setController(this);
+    Message() {
+        this.userIcon.setFont(DukeFx.BASE_FONT);
+        this.userIcon.setContentDisplay(ContentDisplay.TOP);
+        this.userIcon.setUnderline(true);
+        this.userIcon.setGraphic(this.userImage);
+        this.userIcon.setMinWidth(120);
+        HBox.setHgrow(this.text, Priority.ALWAYS);
+        this.setSpacing(10.0);
+    }
 
-        try {
-            loader.load();
-        } catch (IOException e) {
-            throw new DukeException(e);
+    /**
+     * Shows the given line in place of whatever was shown before.
+     *
+     * @param line Line to show
+     */
+    void show(LogLine line) {
+        UserInfo user = line.getUser();
+        if (user != this.user) {
+            this.user = user;
+            this.userImage.setImage(user.getImage());
+            this.userIcon.setTextFill(user.getNameColor());
+            this.userIcon.setAlignment(user.getAlignmentPosition());
+            this.setAlignment(user.getAlignmentPosition());
+            this.setBackground(user.getBackground());
+            if (user.getAlignmentPosition().getHpos() == HPos.LEFT) {
+                this.getChildren().setAll(this.userIcon, this.text);
+            } else {
+                this.getChildren().setAll(this.text, this.userIcon);
+            }
         }
+        //Later lines keep the icon's space, so the text of a message lines up.
+        this.userIcon.setText(line.isFirst() ? user.getName() : "");
+        this.userImage.setVisible(line.isFirst());
+        this.userImage.setManaged(line.isFirst());
+        this.setPadding(line.isFirst() ? FIRST_LINE_PADDING : LINE_PADDING);
+        this.text.setTextAlignment(user.getAlignmentPosition().getHpos() == HPos.LEFT
+                ? TextAlignment.LEFT : TextAlignment.RIGHT);
 
-        this.message = message;
-
-        userIcon.setText(user.getName());
-        userIcon.setGraphic(new ImageView(user.getImage()));
-        userIcon.setTextFill(user.getNameColor());
-
-        Pos textAlignment = user.getAlignmentPosition();
-        //message.setAlignment(textAlignment);
-        userIcon.setAlignment(textAlignment);
-
-        setAlignment(textAlignment);
-        setBackground(user.getBackground());
+        LogLine.Span[] spans = line.getSpans();
+        Text[] nodes = new Text[spans.length];
+        for (int i = 0; i < spans.length; i++) {
+            nodes[i] = makeText(spans[i]);
+        }
+        this.text.getChildren().setAll(nodes);
+    }
 
-        if (user.getAlignmentPosition().getHpos() == HPos.LEFT) {
-            this.getChildren().addAll(userIcon, message);
-        } else {
-            this.getChildren().addAll(message, userIcon);
+    private static Text makeText(LogLine.Span span) {
+        Text node = new Text(span.getText());
+        Font font = DukeFx.BASE_FONT;
+        Color color = Color.BLACK;
+        switch (span.getStyle()) {
+        case Mono:
+            font = DukeFx.MONO_FONT;
+            break;
+        case Required:
+            font = DukeFx.MONO_FONT;
+            color = Color.BROWN;
+            break;
+        case Optional:
+            font = DukeFx.MONO_FONT;
+            color = Color.GREEN;
+            break;
+        case Error:
+            color = Color.RED;
+            break;
+        default:
+            break;
         }
+        node.setFont(font);
+        node.setFill(color);
+        return node;
     }
 }
@@ -15,7 +15,7 @@ public class UserInfo {
             Color.gray(0.8), Pos.CENTER_LEFT, "DaUser.png");
     private final String name;
     private final Color nameColor;
-    private final Color backgroundColor;
+    private final Background background;
     private final Pos alignmentPosition;
     private final Image image;
 
@@ -24,7 +24,10 @@ public class UserInfo {
         this.name = name;
         this.nameColor = nameColor;
         this.alignmentPosition = alignmentPosition;
-        this.backgroundColor = backgroundColor;
+        //Shared by every line of the conversation log showing this user.
+        this.background = new Background(new BackgroundFill(
+                backgroundColor, CornerRadii.EMPTY, Insets.EMPTY
+        ));
         this.image = new Image(DukeFx.class.getResourceAsStream(imagePath));
     }
 
@@ -41,9 +44,7 @@ public class UserInfo {
     }
 
     public Background getBackground() {
-        return new Background(new BackgroundFill(
-                this.backgroundColor, CornerRadii.EMPTY, Insets.EMPTY
-        ));
+        return background;
     }
 
     public Image getImage() {
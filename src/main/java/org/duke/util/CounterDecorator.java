@@ -27,7 +27,7 @@ public class CounterDecorator<T> implements Function<T, CounterDecorator.IntPair
 
         @Override
         public String toString() {
-            return String.format("%d: %s", this.count, this.value);
+            return this.count + ": " + this.value;
         }
     }
 }
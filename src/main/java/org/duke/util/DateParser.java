@@ -1,27 +1,37 @@
 package org.duke.util;
 
+import org.duke.jfr.DateParsedEvent;
+
 import java.text.ParsePosition;
 import java.time.DateTimeException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.Month;
 import java.time.MonthDay;
 import java.time.Year;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.FormatStyle;
+import java.time.format.ResolverStyle;
 import java.time.format.TextStyle;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAccessor;
-import java.time.temporal.TemporalAdjuster;
 import java.time.temporal.TemporalAdjusters;
-import java.time.temporal.TemporalQuery;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import java.time.temporal.TemporalQueries;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Helper class to parse rough date/time strings.
+ *
+ * The first characters of the input decide which date formats are worth trying,
+ * and each format is first matched without resolving,
+ * so that formats which do not fit are rejected without throwing exceptions.
+ * Recent results are cached for the rest of the day.
+ * Each parse is recorded as a {@link DateParsedEvent} while a flight recording is running.
  */
 public class DateParser {
 
@@ -47,11 +57,20 @@ public class DateParser {
                     .appendText(ChronoField.MONTH_OF_YEAR, TextStyle.SHORT)
                     .appendLiteral(' ')
                     .appendValue(ChronoField.DAY_OF_MONTH).toFormatter();
-    private static final DateTimeFormatter[] dateFormatters = new DateTimeFormatter[]{
+    //Date formats to try, in order, for each shape of input.
+    //Day and year fields need a leading number, but month names in some locales start with one too.
+    private static final DateTimeFormatter[] dayFirstFormatters = new DateTimeFormatter[]{
             dmFormatter, addYear(dmFormatter),
+            mdFormatter, addYear(mdFormatter)
+    };
+    private static final DateTimeFormatter[] yearFirstFormatters = new DateTimeFormatter[]{
             mdFormatter, addYear(mdFormatter),
             DateTimeFormatter.ISO_LOCAL_DATE
     };
+    private static final DateTimeFormatter[] monthFirstFormatters = new DateTimeFormatter[]{
+            mdFormatter, addYear(mdFormatter)
+    };
+    private static final DateTimeFormatter[] noFormatters = new DateTimeFormatter[0];
     private static final DateTimeFormatter[] timeFormatters = new DateTimeFormatter[]{
             DateTimeFormatter.ofLocalizedTime(FormatStyle.MEDIUM),
             DateTimeFormatter.ofPattern("kkmm'h'"),
@@ -63,12 +82,29 @@ public class DateParser {
             DateTimeFormatter.ISO_LOCAL_TIME
     };
 
+    private static final int CACHE_SIZE = 1024;
+    private static final Map<String, CachedResult> cache =
+            new LinkedHashMap<>(CACHE_SIZE * 4 / 3, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                    return this.size() > CACHE_SIZE;
+                }
+            };
+
     private final String text;
-    private final ParsePosition pos;
+    private final LocalDateTime now;
+    private final LocalDate today;
+    private int pos = 0;
+    //Whether the result was picked relative to now, rather than given exactly.
+    private boolean relative = false;
+    //Date format which matched, and how many were tried before it, for the flight recorder.
+    private DateTimeFormatter matchedFormatter = null;
+    private int formattersTried = 0;
 
-    private DateParser(String input) {
+    private DateParser(String input, LocalDateTime now) {
         this.text = input;
-        this.pos = new ParsePosition(0);
+        this.now = now;
+        this.today = now.toLocalDate();
     }
 
     private static DateTimeFormatter addYear(DateTimeFormatter fmt) {
@@ -91,85 +127,199 @@ public class DateParser {
      * @return {@link java.time.LocalDateTime} object, or null if no valid parse.
      */
     public static LocalDateTime parse(String input) {
-        return new DateParser(input).parseDateTime();
+        DateParsedEvent event = new DateParsedEvent();
+        event.begin();
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (cache) {
+            CachedResult cached = cache.get(input);
+            if (cached != null && cached.isValidAt(now)) {
+                if (event.shouldCommit()) {
+                    event.input = input;
+                    event.cached = true;
+                    event.matched = cached.value != null;
+                    event.commit();
+                }
+                return cached.value;
+            }
+        }
+        DateParser parser = new DateParser(input, now);
+        LocalDateTime value = parser.parseDateTime();
+        synchronized (cache) {
+            cache.put(input, new CachedResult(now.toLocalDate(), value, parser.relative));
+        }
+        if (event.shouldCommit()) {
+            event.input = input;
+            event.matched = value != null;
+            event.formatter = parser.matchedFormatter == null ? null : parser.matchedFormatter.toString();
+            event.fallbacks = value == null ? parser.formattersTried : parser.formattersTried - 1;
+            event.commit();
+        }
+        return value;
     }
 
     private void eatWhitespace() {
         int i;
-        for (i = pos.getIndex(); i < text.length(); i++) {
-            if (!Character.isWhitespace(text.charAt(i))) {
+        for (i = this.pos; i < this.text.length(); i++) {
+            if (!Character.isWhitespace(this.text.charAt(i))) {
                 break;
             }
         }
-        pos.setIndex(i);
+        this.pos = i;
+    }
+
+    /**
+     * Picks the date formats that could match the input, from its first few characters.
+     */
+    private DateTimeFormatter[] classify() {
+        this.eatWhitespace();
+        int i = this.pos;
+        if (i == this.text.length()) {
+            return noFormatters;
+        }
+        char c = this.text.charAt(i);
+        if (c == '+' || c == '-') {
+            i++;
+        }
+        int digitsStart = i;
+        while (i < this.text.length() && isDigit(this.text.charAt(i))) {
+            i++;
+        }
+        if (i == digitsStart || i == this.text.length()) {
+            return monthFirstFormatters;
+        }
+        switch (this.text.charAt(i)) {
+        case ' ':
+            return dayFirstFormatters;
+        case '-':
+            return yearFirstFormatters;
+        default:
+            return monthFirstFormatters;
+        }
     }
 
-    private <R> R tryParse(DateTimeFormatter formatter,
-                           TemporalQuery<R> query) {
-        eatWhitespace();
-        int ix = pos.getIndex();
-        int errIx = pos.getErrorIndex();
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Parses with the given format from the current position, moving past the match if successful.
+     *
+     * @return Resolved fields, or null if the format does not match.
+     */
+    private TemporalAccessor tryParse(DateTimeFormatter formatter) {
+        this.eatWhitespace();
+        ParsePosition position = new ParsePosition(this.pos);
+        TemporalAccessor unresolved = formatter.parseUnresolved(this.text, position);
+        if (unresolved == null || !isResolvable(unresolved, formatter.getResolverStyle())) {
+            return null;
+        }
+        position.setIndex(this.pos);
         try {
-            TemporalAccessor parsed = formatter.parse(text, pos);
-            R value = query.queryFrom(parsed);
-            if (value == null) {
-                pos.setIndex(ix);
-                pos.setErrorIndex(errIx);
-            }
-            return value;
+            TemporalAccessor parsed = formatter.parse(this.text, position);
+            this.pos = position.getIndex();
+            return parsed;
         } catch (DateTimeException e) {
-            pos.setIndex(ix);
-            pos.setErrorIndex(errIx);
+            //Only reached for field combinations the checks above let through.
             return null;
         }
     }
 
-    @SafeVarargs
-    private <R> R tryParses(DateTimeFormatter formatter,
-                            TemporalQuery<R>... queries) {
-        return tryParse(formatter, parsed -> {
-            for (TemporalQuery<R> q : queries) {
-                try {
-                    R value = q.queryFrom(parsed);
-                    if (value != null) {
-                        return value;
-                    }
-                } catch (DateTimeException e) {
-                    //Swallow any failed parse.
-                }
+    /**
+     * Checks that parsed fields can be resolved, so that doing so does not throw.
+     */
+    private static boolean isResolvable(TemporalAccessor unresolved, ResolverStyle style) {
+        for (ChronoField field : ChronoField.values()) {
+            if (!unresolved.isSupported(field)) {
+                continue;
             }
-            return null;
-        });
+            long value = unresolved.getLong(field);
+            //Smart resolving allows 24:00, as midnight of the next day.
+            boolean midnight = field == ChronoField.HOUR_OF_DAY && value == 24 && style != ResolverStyle.STRICT;
+            if (!field.range().isValidValue(value) && !midnight) {
+                return false;
+            }
+        }
+        if (style == ResolverStyle.STRICT
+                && unresolved.isSupported(ChronoField.YEAR)
+                && unresolved.isSupported(ChronoField.MONTH_OF_YEAR)
+                && unresolved.isSupported(ChronoField.DAY_OF_MONTH)) {
+            YearMonth yearMonth = YearMonth.of(unresolved.get(ChronoField.YEAR),
+                    unresolved.get(ChronoField.MONTH_OF_YEAR));
+            return yearMonth.isValidDay(unresolved.get(ChronoField.DAY_OF_MONTH));
+        }
+        return true;
     }
 
-    private Stream<LocalDate> parseWeekday(DayOfWeek weekday) {
-        TemporalAdjuster nextOrSameWeekday = TemporalAdjusters.nextOrSame(weekday);
-        TemporalAdjuster nextWeekday = TemporalAdjusters.next(weekday);
-        LocalDate first = LocalDate.now().with(nextOrSameWeekday);
-        return Stream.iterate(first, prev ->
-                LocalDate.from(nextWeekday.adjustInto(prev))
-        );
+    /**
+     * Parses a date with the given format, then a time if required.
+     *
+     * @param formatter Date format
+     * @param withTime  Whether a time must follow the date, rather than defaulting to midnight
+     * @return Parsed date and time, or null if either does not match.
+     */
+    private LocalDateTime tryDate(DateTimeFormatter formatter, boolean withTime) {
+        int start = this.pos;
+        this.formattersTried++;
+        TemporalAccessor parsed = this.tryParse(formatter);
+        if (parsed == null) {
+            return null;
+        }
+        LocalDate exactDate = parsed.query(TemporalQueries.localDate());
+        MonthDay monthDay = exactDate == null ? toMonthDay(parsed) : null;
+        LocalTime time = withTime ? this.parseTime() : LocalTime.MIDNIGHT;
+        if (time == null || (exactDate == null && monthDay == null)) {
+            this.pos = start;
+            return null;
+        }
+        if (exactDate != null) {
+            this.matchedFormatter = formatter;
+            return exactDate.atTime(time);
+        }
+        LocalDate date = this.nextMonthDay(monthDay);
+        if (date == null) {
+            this.pos = start;
+            return null;
+        }
+        this.relative = true;
+        this.matchedFormatter = formatter;
+        return date.atTime(time);
     }
 
-    private Stream<LocalDate> parseMonthDay(MonthDay md) {
-        LocalDate now = LocalDate.now();
-        int startYear = now.getYear();
-        IntStream yearStream = IntStream.range(startYear, 9999);
-        if (md.equals(MonthDay.of(2, 29))) {
-            yearStream = yearStream.filter(y -> Year.of(y).isLeap());
+    private static MonthDay toMonthDay(TemporalAccessor parsed) {
+        if (!parsed.isSupported(ChronoField.MONTH_OF_YEAR) || !parsed.isSupported(ChronoField.DAY_OF_MONTH)) {
+            return null;
+        }
+        long month = parsed.getLong(ChronoField.MONTH_OF_YEAR);
+        long day = parsed.getLong(ChronoField.DAY_OF_MONTH);
+        if (month < 1 || month > 12 || day < 1 || day > Month.of((int) month).maxLength()) {
+            return null;
         }
-        return yearStream.mapToObj(md::atYear)
-                .filter(date -> date.isAfter(now));
+        return MonthDay.of((int) month, (int) day);
     }
 
-    private LocalDateTime tryDates(Stream<LocalDate> possibleDates, LocalTime exactTime) {
-        if (possibleDates == null || exactTime == null) {
-            return null;
+    /**
+     * Finds the first occurrence of a month and day after today.
+     */
+    private LocalDate nextMonthDay(MonthDay md) {
+        boolean leapDay = md.equals(MonthDay.of(2, 29));
+        for (int year = this.today.getYear(); year < 9999; year++) {
+            if (leapDay && !Year.isLeap(year)) {
+                continue;
+            }
+            LocalDate date = md.atYear(year);
+            if (date.isAfter(this.today)) {
+                return date;
+            }
         }
-        LocalDateTime now = LocalDateTime.now();
-        return possibleDates.map(d -> d.atTime(exactTime))
-                .filter(d -> d.isAfter(now))
-                .findFirst().orElse(null);
+        return null;
+    }
+
+    /**
+     * Finds the first occurrence of a weekday and time after now.
+     */
+    private LocalDateTime nextWeekday(DayOfWeek weekday, LocalTime time) {
+        LocalDateTime first = this.today.with(TemporalAdjusters.nextOrSame(weekday)).atTime(time);
+        return first.isAfter(this.now) ? first : first.plusWeeks(1);
     }
 
     /**
@@ -177,62 +327,67 @@ public class DateParser {
      * @return Best-guess {@link LocalDateTime} representing the input
      */
     public LocalDateTime parseDateTime() {
+        DateTimeFormatter[] dateFormatters = this.classify();
         for (DateTimeFormatter dt : dateFormatters) {
-            LocalDateTime date = tryParses(dt,
-                    acc -> {
-                        LocalDate exactDate = LocalDate.from(acc);
-                        if (exactDate == null) {
-                            return null;
-                        }
-                        LocalTime exactTime = parseTime();
-                        if (exactTime == null) {
-                            return null;
-                        }
-                        return exactDate.atTime(exactTime);
-                    },
-                    acc -> {
-                        Stream<LocalDate> possibleDates = parseMonthDay(MonthDay.from(acc));
-                        LocalTime exactTime = parseTime();
-                        return tryDates(possibleDates, exactTime);
-                    });
+            LocalDateTime date = this.tryDate(dt, true);
             if (date != null) {
                 return date;
             }
         }
         for (DateTimeFormatter dt : dateFormatters) {
-            LocalDateTime date = tryParses(dt,
-                    acc -> {
-                        LocalDate exactDate = LocalDate.from(acc);
-                        if (exactDate == null) {
-                            return null;
-                        }
-                        return exactDate.atTime(LocalTime.MIDNIGHT);
-                    },
-                    acc -> {
-                        Stream<LocalDate> possibleDates = parseMonthDay(MonthDay.from(acc));
-                        return tryDates(possibleDates, LocalTime.MIDNIGHT);
-                    });
+            LocalDateTime date = this.tryDate(dt, false);
             if (date != null) {
                 return date;
             }
         }
-        Stream<LocalDate> possibleDates = tryParse(weekdayFormatter,
-                acc -> parseWeekday(DayOfWeek.from(acc))
-        );
-        LocalTime exactTime = parseTime();
+        //Weekday names, or numbers, which lenient parsing also accepts.
+        this.formattersTried++;
+        TemporalAccessor weekday = this.tryParse(weekdayFormatter);
+        if (weekday == null || !weekday.isSupported(ChronoField.DAY_OF_WEEK)) {
+            return null;
+        }
+        this.matchedFormatter = weekdayFormatter;
+        LocalTime exactTime = this.parseTime();
         if (exactTime == null) {
             exactTime = LocalTime.MIDNIGHT;
         }
-        return tryDates(possibleDates, exactTime);
+        this.relative = true;
+        return this.nextWeekday(DayOfWeek.from(weekday), exactTime);
     }
 
     private LocalTime parseTime() {
         for (DateTimeFormatter dt : timeFormatters) {
-            LocalTime time = tryParse(dt, LocalTime::from);
+            int start = this.pos;
+            TemporalAccessor parsed = this.tryParse(dt);
+            LocalTime time = parsed == null ? null : parsed.query(TemporalQueries.localTime());
             if (time != null) {
                 return time;
             }
+            this.pos = start;
         }
         return null;
     }
+
+    /**
+     * A parse result, which stays valid for the rest of the day it was parsed on,
+     * unless it was picked relative to a time which has since passed.
+     */
+    private static class CachedResult {
+        private final LocalDate day;
+        private final LocalDateTime value;
+        private final boolean relative;
+
+        private CachedResult(LocalDate day, LocalDateTime value, boolean relative) {
+            this.day = day;
+            this.value = value;
+            this.relative = relative;
+        }
+
+        private boolean isValidAt(LocalDateTime now) {
+            if (!this.day.equals(now.toLocalDate())) {
+                return false;
+            }
+            return !this.relative || this.value == null || this.value.isAfter(now);
+        }
+    }
 }
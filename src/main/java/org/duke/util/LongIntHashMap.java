@@ -0,0 +1,149 @@
+package org.duke.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from non-zero longs to non-negative ints, without boxing either.
+ *
+ * Backed by open addressing with linear probing; 0 marks an empty slot,
+ * which is why 0 cannot be used as a key.
+ * Removal shifts later entries of a probe run back, so no deleted markers pile up.
+ */
+public class LongIntHashMap {
+    private static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int count = 0;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty map, with room for the given number of entries before growing.
+     *
+     * @param capacity Initial capacity
+     */
+    public LongIntHashMap(int capacity) {
+        int size = Math.max(16, Integer.highestOneBit(Math.max(1, capacity * 2 - 1)) << 1);
+        this.keys = new long[size];
+        this.values = new int[size];
+        this.mask = size - 1;
+    }
+
+    private static int hash(long key) {
+        //Spread sequential keys across the table, as ids mostly are.
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(long key) {
+        int i = hash(key) & this.mask;
+        while (this.keys[i] != 0 && this.keys[i] != key) {
+            i = (i + 1) & this.mask;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the value mapped to a key.
+     *
+     * @param key Key to look up
+     * @return Mapped value, or -1 if the key is not in the map
+     */
+    public int get(long key) {
+        if (key == 0) {
+            return MISSING;
+        }
+        int i = this.find(key);
+        return this.keys[i] == 0 ? MISSING : this.values[i];
+    }
+
+    public boolean containsKey(long key) {
+        return this.get(key) != MISSING;
+    }
+
+    /**
+     * Maps a key to a value, replacing any value it had.
+     *
+     * @param key   Non-zero key
+     * @param value Non-negative value
+     */
+    public void put(long key, int value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Zero key");
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        int i = this.find(key);
+        if (this.keys[i] == 0) {
+            if ((this.count + 1) * 2 > this.keys.length) {
+                this.grow();
+                i = this.find(key);
+            }
+            this.keys[i] = key;
+            this.count++;
+        }
+        this.values[i] = value;
+    }
+
+    /**
+     * Removes a key from the map.
+     *
+     * @param key Key to remove
+     * @return Value the key was mapped to, or -1 if it was not in the map
+     */
+    public int remove(long key) {
+        if (key == 0) {
+            return MISSING;
+        }
+        int i = this.find(key);
+        if (this.keys[i] == 0) {
+            return MISSING;
+        }
+        int removed = this.values[i];
+        //Move back any later entry of the run that could no longer be reached past the gap.
+        int gap = i;
+        for (int j = (gap + 1) & this.mask; this.keys[j] != 0; j = (j + 1) & this.mask) {
+            int home = hash(this.keys[j]) & this.mask;
+            if (((j - home) & this.mask) >= ((j - gap) & this.mask)) {
+                this.keys[gap] = this.keys[j];
+                this.values[gap] = this.values[j];
+                gap = j;
+            }
+        }
+        this.keys[gap] = 0;
+        this.count--;
+        return removed;
+    }
+
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new int[oldKeys.length * 2];
+        this.mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int j = this.find(oldKeys[i]);
+                this.keys[j] = oldKeys[i];
+                this.values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Removes every entry, keeping the table's current size.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, 0);
+        this.count = 0;
+    }
+
+    public int size() {
+        return this.count;
+    }
+}
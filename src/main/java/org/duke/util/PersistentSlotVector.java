@@ -0,0 +1,390 @@
+package org.duke.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable sequence of slots, each either holding an element or empty.
+ *
+ * Kept as a 32-way trie, so a changed copy shares every node with the original
+ * except the few on the path to the change, and costs logarithmic time and space to make.
+ * Each node counts the elements below it, so the element of a given rank,
+ * and the rank of the element in a given slot, are also found in logarithmic time.
+ * Being immutable, a vector can be read from any number of threads without locking.
+ *
+ * @param <T> Element type
+ */
+public final class PersistentSlotVector<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentSlotVector<?> EMPTY =
+            new PersistentSlotVector<>(new Node(new Object[WIDTH], 0), 0, 0);
+
+    private final Node root;
+    //Bits of a slot number below the root's own index, a multiple of BITS.
+    private final int shift;
+    private final int slotCount;
+
+    private PersistentSlotVector(Node root, int shift, int slotCount) {
+        this.root = root;
+        this.shift = shift;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Returns the vector with no slots.
+     *
+     * @param <T> Element type
+     * @return Empty vector
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentSlotVector<T> empty() {
+        return (PersistentSlotVector<T>) EMPTY;
+    }
+
+    /**
+     * Builds a vector holding the given elements in its first slots, all at once.
+     *
+     * @param elements Elements, with nulls for empty slots
+     * @param count    Number of slots to fill from the array
+     * @param <T>      Element type
+     * @return Vector of {@code count} slots
+     */
+    public static <T> PersistentSlotVector<T> of(T[] elements, int count) {
+        if (count == 0) {
+            return empty();
+        }
+        Node[] level = new Node[(count + MASK) >>> BITS];
+        for (int i = 0; i < level.length; i++) {
+            Object[] children = new Object[WIDTH];
+            int from = i << BITS;
+            int length = Math.min(WIDTH, count - from);
+            System.arraycopy(elements, from, children, 0, length);
+            int filled = 0;
+            for (int j = 0; j < length; j++) {
+                if (children[j] != null) {
+                    filled++;
+                }
+            }
+            level[i] = new Node(children, filled);
+        }
+
+        int shift = 0;
+        while (level.length > 1) {
+            Node[] parents = new Node[(level.length + MASK) >>> BITS];
+            for (int i = 0; i < parents.length; i++) {
+                Object[] children = Arrays.copyOfRange(level, i << BITS, (i << BITS) + WIDTH, Object[].class);
+                int filled = 0;
+                for (Object child : children) {
+                    filled += child == null ? 0 : ((Node) child).count;
+                }
+                parents[i] = new Node(children, filled);
+            }
+            level = parents;
+            shift += BITS;
+        }
+        return new PersistentSlotVector<>(level[0], shift, count);
+    }
+
+    /**
+     * Returns the number of elements, not counting empty slots.
+     *
+     * @return Element count
+     */
+    public int size() {
+        return this.root.count;
+    }
+
+    /**
+     * Returns the number of slots, empty or not.
+     *
+     * @return Slot count
+     */
+    public int slotCount() {
+        return this.slotCount;
+    }
+
+    /**
+     * Returns the element in the given slot.
+     *
+     * @param slot Slot number
+     * @return Element, or null if the slot is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int slot) {
+        this.checkSlot(slot);
+        return (T) this.leafFor(slot).children[slot & MASK];
+    }
+
+    /**
+     * Finds the slot holding the element of the given rank.
+     *
+     * @param rank Number of elements before the one wanted
+     * @return Slot number
+     */
+    public int select(int rank) {
+        if (rank < 0 || rank >= this.size()) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for length %d",
+                    rank, this.size()));
+        }
+        Node node = this.root;
+        int slot = 0;
+        for (int shift = this.shift; shift > 0; shift -= BITS) {
+            int i = 0;
+            while (true) {
+                Node child = (Node) node.children[i];
+                if (child != null && rank < child.count) {
+                    node = child;
+                    break;
+                }
+                rank -= child == null ? 0 : child.count;
+                i++;
+            }
+            slot |= i << shift;
+        }
+        int i = 0;
+        while (true) {
+            if (node.children[i] != null && rank-- == 0) {
+                return slot | i;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Counts the elements in the slots before the given one.
+     *
+     * @param slot Slot number, up to the slot count
+     * @return Rank of the element in the slot, if any
+     */
+    public int rank(int slot) {
+        if (slot < 0 || slot > this.slotCount) {
+            throw new IndexOutOfBoundsException(String.format("Slot %d out of bounds for length %d",
+                    slot, this.slotCount));
+        }
+        if (slot == this.slotCount) {
+            return this.size();
+        }
+        Node node = this.root;
+        int rank = 0;
+        for (int shift = this.shift; shift > 0; shift -= BITS) {
+            int index = (slot >>> shift) & MASK;
+            for (int i = 0; i < index; i++) {
+                Node child = (Node) node.children[i];
+                rank += child == null ? 0 : child.count;
+            }
+            node = (Node) node.children[index];
+        }
+        for (int i = 0; i < (slot & MASK); i++) {
+            if (node.children[i] != null) {
+                rank++;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns a copy of this vector with the given element in a new slot at the end.
+     *
+     * @param element Element to add
+     * @return Vector with one more slot
+     */
+    public PersistentSlotVector<T> append(T element) {
+        Objects.requireNonNull(element);
+        Node root = this.root;
+        int shift = this.shift;
+        if (this.slotCount == 1 << (shift + BITS)) {
+            //The trie is full, so grow a level above the old root.
+            Object[] children = new Object[WIDTH];
+            children[0] = root;
+            root = new Node(children, root.count);
+            shift += BITS;
+        }
+        return new PersistentSlotVector<>(put(root, shift, this.slotCount, element), shift, this.slotCount + 1);
+    }
+
+    /**
+     * Returns a copy of this vector with the given slot holding another element, or emptied.
+     *
+     * @param slot    Slot number
+     * @param element Element to put in the slot, or null to empty it
+     * @return Changed vector
+     */
+    public PersistentSlotVector<T> set(int slot, T element) {
+        this.checkSlot(slot);
+        return new PersistentSlotVector<>(put(this.root, this.shift, slot, element), this.shift, this.slotCount);
+    }
+
+    /**
+     * Returns a copy of this vector with several slots changed,
+     * copying each affected node only once.
+     *
+     * @param slots    Slot numbers, in ascending order without repeats
+     * @param elements Element for each slot, or null to empty every slot
+     * @return Changed vector
+     */
+    public PersistentSlotVector<T> setAll(int[] slots, T[] elements) {
+        if (slots.length == 0) {
+            return this;
+        }
+        this.checkSlot(slots[0]);
+        this.checkSlot(slots[slots.length - 1]);
+        Node root = putAll(this.root, this.shift, slots, elements, 0, slots.length);
+        return new PersistentSlotVector<>(root, this.shift, this.slotCount);
+    }
+
+    /**
+     * Copies the elements out in slot order, skipping empty slots.
+     *
+     * @return List of elements
+     */
+    public ArrayList<T> toList() {
+        ArrayList<T> elements = new ArrayList<>(this.size());
+        this.iterator(0).forEachRemaining(elements::add);
+        return elements;
+    }
+
+    /**
+     * Iterates over the elements from the given slot onwards, skipping empty slots.
+     *
+     * @param fromSlot Slot to start at
+     * @return Element iterator
+     */
+    public Iterator<T> iterator(int fromSlot) {
+        return new Iterator<>() {
+            private int slot = fromSlot;
+            private Object[] leaf;
+            private T next = this.advance();
+
+            @SuppressWarnings("unchecked")
+            private T advance() {
+                int slotCount = PersistentSlotVector.this.slotCount;
+                while (this.slot < slotCount) {
+                    if (this.leaf == null || (this.slot & MASK) == 0) {
+                        Node node = PersistentSlotVector.this.leafFor(this.slot);
+                        if (node.count == 0) {
+                            //Skip over a leaf with nothing left in it.
+                            this.slot = (this.slot | MASK) + 1;
+                            this.leaf = null;
+                            continue;
+                        }
+                        this.leaf = node.children;
+                    }
+                    Object element = this.leaf[this.slot++ & MASK];
+                    if (element != null) {
+                        return (T) element;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public T next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+                T element = this.next;
+                this.next = this.advance();
+                return element;
+            }
+        };
+    }
+
+    /**
+     * Streams the elements from the given slot onwards, skipping empty slots.
+     *
+     * @param fromSlot Slot to start at
+     * @return Element stream
+     */
+    public Stream<T> stream(int fromSlot) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this.iterator(fromSlot),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= this.slotCount) {
+            throw new IndexOutOfBoundsException(String.format("Slot %d out of bounds for length %d",
+                    slot, this.slotCount));
+        }
+    }
+
+    private Node leafFor(int slot) {
+        Node node = this.root;
+        for (int shift = this.shift; shift > 0; shift -= BITS) {
+            node = (Node) node.children[(slot >>> shift) & MASK];
+        }
+        return node;
+    }
+
+    private static Node put(Node node, int shift, int slot, Object element) {
+        Object[] children = node == null ? new Object[WIDTH] : node.children.clone();
+        int count = node == null ? 0 : node.count;
+        int index = (slot >>> shift) & MASK;
+        if (shift == 0) {
+            count += (element == null ? 0 : 1) - (children[index] == null ? 0 : 1);
+            children[index] = element;
+        } else {
+            Node child = (Node) children[index];
+            Node changed = put(child, shift - BITS, slot, element);
+            count += changed.count - (child == null ? 0 : child.count);
+            children[index] = changed;
+        }
+        return new Node(children, count);
+    }
+
+    private static Node putAll(Node node, int shift, int[] slots, Object[] elements, int from, int to) {
+        Object[] children = node.children.clone();
+        int count = node.count;
+        if (shift == 0) {
+            for (int k = from; k < to; k++) {
+                int index = slots[k] & MASK;
+                Object element = elements == null ? null : elements[k];
+                count += (element == null ? 0 : 1) - (children[index] == null ? 0 : 1);
+                children[index] = element;
+            }
+            return new Node(children, count);
+        }
+        //Slots under one child are next to each other, so hand each child its run of them.
+        int k = from;
+        while (k < to) {
+            int index = (slots[k] >>> shift) & MASK;
+            int end = k + 1;
+            while (end < to && ((slots[end] >>> shift) & MASK) == index) {
+                end++;
+            }
+            Node child = (Node) children[index];
+            Node changed = putAll(child, shift - BITS, slots, elements, k, end);
+            count += changed.count - child.count;
+            children[index] = changed;
+            k = end;
+        }
+        return new Node(children, count);
+    }
+
+    /**
+     * A node of the trie, holding elements if a leaf, or else child nodes,
+     * along with the number of elements below it.
+     */
+    private static final class Node {
+        private final Object[] children;
+        private final int count;
+
+        private Node(Object[] children, int count) {
+            this.children = children;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.duke;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BackgroundSaverTest {
+    @Test
+    public void failureTest() {
+        AtomicInteger flushes = new AtomicInteger();
+        BackgroundSaver saver = new BackgroundSaver(() -> {
+            flushes.incrementAndGet();
+            throw new IOException("disk full");
+        }, 1000, 1);
+
+        saver.changed(1);
+        assertThrows(DukeException.class, saver::flush);
+        //Only checking for the failure, before the next change, throws it again.
+        saver.changed(1);
+        assertThrows(DukeException.class, saver::checkFailure);
+        assertThrows(DukeException.class, saver::close);
+        assertEquals(1, flushes.get(), "Nothing is flushed after a failure");
+    }
+
+    @Test
+    public void closeTest() {
+        AtomicInteger flushes = new AtomicInteger();
+        BackgroundSaver saver = new BackgroundSaver(flushes::incrementAndGet, 60000, 100);
+        saver.changed(1);
+        saver.close();
+        assertEquals(1, flushes.get(), "Closing flushes changes without waiting for the interval");
+    }
+}
@@ -0,0 +1,190 @@
+package org.duke;
+
+import org.duke.task.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PagedTaskStoreTest {
+    //Long enough that a few hundred tasks span many pages, and their removal is worth compacting.
+    private static final String PADDING = "x".repeat(8000);
+
+    @Test
+    public void reopenTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        Path data = directory.resolve("duke.db");
+        try {
+            //One page in memory, so that the tasks are read back through evicted pages.
+            try (PagedTaskStore store = PagedTaskStore.open(data, 1)) {
+                addPadded(store, 100);
+                store.markComplete(3);
+                store.remove(0);
+                checkPadded(store, 1, 100);
+            }
+
+            try (PagedTaskStore store = PagedTaskStore.open(data, 1)) {
+                checkPadded(store, 1, 100);
+                assertTrue(store.get(2).isCompleted());
+                assertFalse(store.get(3).isCompleted());
+                assertEquals(101, store.add(new Task("next")).getId());
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void unsavedRecordsTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        Path data = directory.resolve("duke.db");
+        try {
+            //Left open, as after a crash, with the unsaved records partly written out by evicted pages.
+            PagedTaskStore crashed = PagedTaskStore.open(data, 1);
+            addPadded(crashed, 20);
+            crashed.save();
+            long saved = Files.size(data);
+            addPadded(crashed, 20);
+            assertTrue(Files.size(data) > saved);
+
+            try (PagedTaskStore store = PagedTaskStore.open(data, 1)) {
+                assertEquals(saved, Files.size(data), "Unsaved records are dropped");
+                checkPadded(store, 0, 20);
+                assertEquals(21, store.add(new Task("next")).getId());
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void migrationTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        try {
+            TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory);
+            storage.add(new Task("a"));
+            storage.add(new Task("b"));
+            storage.remove(0);
+            storage.close();
+
+            try (PagedTaskStore store = PagedTaskStore.load(directory, 4)) {
+                assertEquals(1, store.size());
+                assertEquals("b", store.get(0).getDescription());
+                assertEquals(2, store.get(0).getId());
+                assertEquals(3, store.add(new Task("c")).getId());
+            }
+            assertFalse(Files.exists(directory.resolve("duke.json.journal")));
+            assertTrue(Files.exists(directory.resolve("duke.json.journal.migrated")));
+            try (PagedTaskStore store = PagedTaskStore.load(directory, 4)) {
+                assertEquals(2, store.size());
+            }
+
+            storage = TaskStorage.load(TaskStorage.Format.Binary, directory);
+            assertEquals(List.of("b", "c"), storage.stream().map(Task::getDescription).collect(Collectors.toList()));
+            assertEquals(List.of(2L, 3L), storage.stream().map(Task::getId).collect(Collectors.toList()));
+            storage.close();
+            assertFalse(Files.exists(directory.resolve("duke.db")));
+            assertTrue(Files.exists(directory.resolve("duke.db.migrated")));
+            assertTrue(Files.exists(directory.resolve("duke.db.idx.migrated")));
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void compactionTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        Path data = directory.resolve("duke.db");
+        try {
+            try (PagedTaskStore store = PagedTaskStore.open(data, 4)) {
+                addPadded(store, 300);
+                store.save();
+                long before = Files.size(data);
+                store.removeAll(IntStream.range(0, 250).toArray());
+                store.save();
+                assertTrue(Files.size(data) < before / 2, "Removed records are dropped from the data file");
+            }
+
+            try (PagedTaskStore store = PagedTaskStore.open(data, 4)) {
+                checkPadded(store, 250, 300);
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void interruptedCompactionTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        Path data = directory.resolve("duke.db");
+        Path index = directory.resolve("duke.db.idx");
+        Path oldData = directory.resolve("old.db");
+        Path oldIndex = directory.resolve("old.db.idx");
+        try {
+            try (PagedTaskStore store = PagedTaskStore.open(data, 4)) {
+                addPadded(store, 300);
+                store.save();
+                Files.copy(data, oldData);
+                Files.copy(index, oldIndex);
+                store.removeAll(IntStream.range(0, 250).toArray());
+            }
+
+            //A crash once the compacted data file was moved into place, but not its index.
+            Files.move(index, directory.resolve("duke.db.idx.compact"));
+            Files.copy(oldIndex, index);
+            try (PagedTaskStore store = PagedTaskStore.open(data, 4)) {
+                checkPadded(store, 250, 300);
+            }
+            assertFalse(Files.exists(directory.resolve("duke.db.idx.compact")));
+
+            //A crash before the compacted data file was moved into place.
+            Files.move(data, directory.resolve("duke.db.compact"), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(index, directory.resolve("duke.db.idx.compact"), StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(oldData, data);
+            Files.copy(oldIndex, index);
+            try (PagedTaskStore store = PagedTaskStore.open(data, 4)) {
+                checkPadded(store, 0, 300);
+            }
+            assertFalse(Files.exists(directory.resolve("duke.db.compact")));
+            assertFalse(Files.exists(directory.resolve("duke.db.idx.compact")));
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    private static void addPadded(TaskStore store, int count) {
+        for (int i = 0; i < count; i++) {
+            store.add(new Task("task " + i + " " + PADDING));
+        }
+    }
+
+    /**
+     * Checks that the store holds the padded tasks numbered from one number up til another.
+     */
+    private static void checkPadded(TaskStore store, int from, int to) {
+        List<String> expected = IntStream.range(from, to)
+                .mapToObj(i -> "task " + i + " " + PADDING)
+                .collect(Collectors.toList());
+        assertEquals(expected, store.stream().map(Task::getDescription).collect(Collectors.toList()));
+        assertEquals(from + 1, store.get(0).getId());
+    }
+
+    private static void deleteAll(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+}
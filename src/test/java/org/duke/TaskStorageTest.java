@@ -0,0 +1,358 @@
+package org.duke;
+
+import org.duke.task.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskStorageTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int OPERATIONS = 20000;
+
+    @Test
+    public void snapshotTest() {
+        TaskStorage storage = new TaskStorage(new ArrayList<>());
+        storage.add(new Task("read book"));
+        storage.add(new Task("return book"));
+        TaskView before = storage.snapshot();
+
+        storage.markComplete(0);
+        storage.remove(1);
+        Task milk = new Task("buy milk");
+        assertEquals(3, storage.add(milk).getId());
+        assertEquals(0, milk.getId(), "Adding a task leaves the caller's copy as it was");
+
+        assertEquals(2, before.size());
+        assertEquals("[T][✗] read book", before.get(0).toString(), "Snapshots do not see later changes");
+        assertEquals(1, before.indexOf(2));
+        assertEquals(2, before.find("book").count());
+        assertEquals("[T][✓] read book", storage.get(0).toString());
+        assertEquals(-1, storage.indexOf(2));
+        assertEquals(1, storage.find("book").count());
+    }
+
+    @Test
+    public void migrationTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        try {
+            try (TaskStorage json = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                json.add(new Task("read book"));
+                json.add(new Task("return book"));
+                json.markComplete(0);
+            }
+
+            try (TaskStorage binary = TaskStorage.load(TaskStorage.Format.Binary, directory)) {
+                assertEquals("[T][✓] read book", binary.get(0).toString());
+                assertEquals(2, binary.get(1).getId());
+                assertFalse(Files.exists(directory.resolve("duke.json.journal")), "Migrated files are set aside");
+                assertTrue(Files.exists(directory.resolve("duke.json.journal.migrated")));
+                binary.remove(1);
+                binary.add(new Task("buy milk"));
+            }
+
+            try (TaskStorage json = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                List<String> tasks = json.stream().map(Task::toString).collect(Collectors.toList());
+                assertEquals(List.of("[T][✓] read book", "[T][✗] buy milk"), tasks,
+                        "Switching back carries over the latest tasks, not the ones first migrated");
+                assertEquals(3, json.get(1).getId());
+                assertFalse(Files.exists(directory.resolve("duke.bin")));
+                assertTrue(Files.exists(directory.resolve("duke.bin.migrated")));
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void journalReplayTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        try {
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                storage.add(new Task("read book"));
+                storage.add(new Task("return book"));
+                storage.add(new Task("buy milk"));
+                storage.markComplete(0);
+                storage.remove(1);
+            }
+            assertFalse(Files.exists(directory.resolve("duke.json")), "Changes are only journaled");
+
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                assertEquals(List.of("[T][✓] read book", "[T][✗] buy milk"), describe(storage));
+                assertEquals(3, storage.get(1).getId());
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void tornJournalTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        Path journal = directory.resolve("duke.json.journal");
+        try {
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                storage.add(new Task("read book"));
+                storage.add(new Task("return book"));
+            }
+            //A crash partway through writing a record.
+            Files.writeString(journal, "{\"op\":\"Add\",\"ta", StandardOpenOption.APPEND);
+
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                assertEquals(2, storage.size(), "The torn record is dropped");
+                storage.add(new Task("buy milk"));
+                storage.add(new Task("pay bills"));
+            }
+
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                assertEquals(List.of("[T][✗] read book", "[T][✗] return book", "[T][✗] buy milk",
+                        "[T][✗] pay bills"), describe(storage), "Changes after the torn record are kept");
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void unfinishedCompactionTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        Path journal = directory.resolve("duke.json.journal");
+        Path compacting = directory.resolve("duke.json.journal.old");
+        try {
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                storage.add(new Task("read book"));
+                storage.add(new Task("return book"));
+            }
+            //A crash once the journal was set aside, but before the snapshot was written.
+            Files.move(journal, compacting);
+
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                assertEquals(2, storage.size(), "The journal set aside is replayed");
+                storage.add(new Task("buy milk"));
+            }
+            assertFalse(Files.exists(compacting), "The compaction is finished on load");
+            assertTrue(Files.exists(directory.resolve("duke.json")));
+
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                assertEquals(List.of("[T][✗] read book", "[T][✗] return book", "[T][✗] buy milk"),
+                        describe(storage), "Nothing is replayed twice");
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void mismatchedJournalTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        Path journal = directory.resolve("duke.json.journal");
+        try {
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                storage.add(new Task("read book"));
+            }
+            String stale = Files.readString(journal);
+            Files.move(journal, directory.resolve("duke.json.journal.old"));
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                storage.add(new Task("return book"));
+            }
+            //A journal written on top of other tasks than the snapshot holds.
+            Files.writeString(journal, stale);
+
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                assertEquals(List.of("[T][✗] read book"), describe(storage), "The journal is not replayed");
+                storage.add(new Task("buy milk"));
+            }
+
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                assertEquals(List.of("[T][✗] read book", "[T][✗] buy milk"), describe(storage));
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    @Test
+    public void compactionTest() throws IOException {
+        Path directory = Files.createTempDirectory("duke");
+        try {
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                for (int i = 0; i < 1500; i++) {
+                    storage.add(new Task("task " + i));
+                }
+                storage.removeAll(IntStream.range(0, 500).toArray());
+                storage.markComplete(0);
+            }
+            assertTrue(Files.exists(directory.resolve("duke.json")), "A long journal is folded into a snapshot");
+            assertFalse(Files.exists(directory.resolve("duke.json.journal.old")));
+            assertTrue(Files.readAllLines(directory.resolve("duke.json.journal")).size() < 1024,
+                    "The journal starts again after the snapshot");
+
+            try (TaskStorage storage = TaskStorage.load(TaskStorage.Format.Json, directory)) {
+                assertEquals(1000, storage.size());
+                assertEquals("[T][✓] task 500", storage.get(0).toString());
+                assertEquals("[T][✗] task 1499", storage.get(999).toString());
+                assertEquals(1500, storage.get(999).getId());
+            }
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    private static List<String> describe(TaskView tasks) {
+        return tasks.stream().map(Task::toString).collect(Collectors.toList());
+    }
+
+    private static void deleteAll(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void changeByIdsTest() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            tasks.add(new Task("task " + i));
+        }
+        TaskStorage storage = new TaskStorage(tasks);
+
+        List<Task> completed = storage.markCompleteByIds(new long[] {4, 2});
+        assertEquals(2, completed.get(0).getId(), "Changed tasks are given in list order");
+        assertTrue(storage.get(1).isCompleted() && storage.get(3).isCompleted());
+
+        storage.remove(0);
+        assertEquals(List.of("task 3", "task 5"), storage.removeByIds(new long[] {5, 3}).stream()
+                .map(Task::getDescription).collect(Collectors.toList()), "Ids stay put as earlier tasks are removed");
+        assertThrows(DukeException.class, () -> storage.removeByIds(new long[] {2, 3}));
+        assertThrows(DukeException.class, () -> storage.markCompleteByIds(new long[] {1}));
+        assertEquals(2, storage.size(), "A missing id leaves every task as it was");
+    }
+
+    @Test
+    public void concurrentChangesTest() throws Exception {
+        TaskStorage storage = new TaskStorage(new ArrayList<>());
+        AtomicInteger size = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                int writer = i;
+                writers.add(pool.submit(() -> write(storage, writer, size)));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                int reader = i;
+                readers.add(pool.submit(() -> read(storage, reader, writing)));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(size.get(), storage.size(), "Every change made is kept");
+        check(storage.snapshot(), new Random(0), new HashSet<>());
+    }
+
+    private static void write(TaskStorage storage, int writer, AtomicInteger size) {
+        Random random = new Random(writer);
+        for (int i = 0; i < OPERATIONS; i++) {
+            int op = random.nextInt(10);
+            if (op < 5) {
+                storage.add(new Task(String.format("task %d %d", writer, i)));
+                size.incrementAndGet();
+                continue;
+            }
+            TaskView tasks = storage.snapshot();
+            if (tasks.size() == 0) {
+                continue;
+            }
+            int from = random.nextInt(tasks.size());
+            long[] ids = tasks.stream(from, Math.min(tasks.size(), from + 1 + random.nextInt(3)))
+                    .mapToLong(Task::getId)
+                    .toArray();
+            //Other writers can remove these tasks after the snapshot is taken, failing the change as a whole.
+            List<Task> changed;
+            try {
+                changed = op < 8 ? storage.removeByIds(ids) : storage.markCompleteByIds(ids);
+            } catch (DukeException e) {
+                continue;
+            }
+            assertArrayEquals(ids, changed.stream().mapToLong(Task::getId).toArray(),
+                    "Exactly the tasks asked for are changed");
+            if (op < 8) {
+                size.addAndGet(-changed.size());
+            } else {
+                assertTrue(changed.stream().allMatch(Task::isCompleted));
+            }
+        }
+    }
+
+    private static void read(TaskStorage storage, int reader, AtomicBoolean writing) {
+        Random random = new Random(-reader);
+        Set<Long> completed = new HashSet<>();
+        while (writing.get()) {
+            check(storage.snapshot(), random, completed);
+        }
+    }
+
+    /**
+     * Checks that a snapshot is consistent, and stays so, and that no task it has completed went back.
+     */
+    private static void check(TaskView snapshot, Random random, Set<Long> completed) {
+        List<Task> tasks = snapshot.stream().collect(Collectors.toList());
+        assertEquals(snapshot.size(), tasks.size());
+        long lastId = 0;
+        for (Task task : tasks) {
+            assertTrue(task.getId() > lastId, "Ids are unique, and ascend in list order");
+            lastId = task.getId();
+            if (task.isCompleted()) {
+                completed.add(task.getId());
+            } else {
+                assertTrue(!completed.contains(task.getId()), "Completed tasks stay completed");
+            }
+        }
+        for (int k = 0; k < 8 && !tasks.isEmpty(); k++) {
+            int index = random.nextInt(tasks.size());
+            Task task = tasks.get(index);
+            assertEquals(task, snapshot.get(index));
+            assertEquals(index, snapshot.indexOf(task.getId()));
+            assertTrue(snapshot.find(task.getDescription()).anyMatch(i -> i == index));
+            assertEquals(tasks.subList(index, tasks.size()),
+                    snapshot.stream(index, tasks.size()).collect(Collectors.toList()));
+        }
+        assertEquals(tasks.size(), snapshot.find("task").count());
+        assertEquals(tasks, snapshot.stream().collect(Collectors.toList()), "Snapshots never change");
+    }
+}
@@ -0,0 +1,98 @@
+package org.duke.cmd;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks {@link Command#parse(String)} against the regular expression parser it replaced.
+ */
+public class CommandParseTest {
+    private static final Pattern switchBoundary = Pattern.compile("\\s+/");
+    private static final Pattern cmdBoundary = Pattern.compile("\\s+");
+    private static final String[] fragments = {
+            "a", "bc", "by", "at", "/", "//", " ", "  ", "\t", "\n", "\r", "\f", "\u000B",
+            "\u0001", "\u00A0", "\u2003", "x/y", "-", "é"
+    };
+
+    /**
+     * The original parser, returning the type and arguments as the first two entries
+     * under keys no switch can have.
+     */
+    private static Map<String, String> regexParse(String input) {
+        input = input.trim();
+        String[] splits = switchBoundary.split(input);
+        String[] mainArgs = cmdBoundary.split(splits[0], 2);
+        if (mainArgs[0].isEmpty()) {
+            return null;
+        }
+        Map<String, String> namedArguments = new HashMap<>();
+        for (int i = 1; i < splits.length; i++) {
+            if (splits[i].isEmpty()) {
+                continue;
+            }
+            String[] switchArgs = cmdBoundary.split(splits[i], 2);
+            namedArguments.put(switchArgs[0], switchArgs.length > 1 ? switchArgs[1] : "");
+        }
+        namedArguments.put(" type", mainArgs[0]);
+        namedArguments.put(" arguments", mainArgs.length > 1 ? mainArgs[1] : "");
+        return namedArguments;
+    }
+
+    private static void assertSameParse(String input) {
+        Map<String, String> expected = regexParse(input);
+        Command actual = Command.parse(input);
+        if (expected == null) {
+            assertNull(actual, input);
+            return;
+        }
+        assertNotNull(actual, input);
+        assertEquals(expected.remove(" type"), actual.getType(), input);
+        assertEquals(expected.remove(" arguments"), actual.getArguments(), input);
+        Map<String, String> named = actual.getNamedArguments();
+        assertEquals(expected, named, input);
+        assertEquals(expected.isEmpty(), named.isEmpty(), input);
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), named.get(entry.getKey()), input);
+        }
+        for (String fragment : fragments) {
+            assertEquals(expected.get(fragment), named.get(fragment), input);
+            assertEquals(expected.containsKey(fragment), named.containsKey(fragment), input);
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        String[] inputs = {
+                "", " ", "\t\n", "\u0001", "todo", "  todo  ", "todo read book",
+                "deadline return book /by Sunday", "event party /at 2pm /at 3pm",
+                "a /", "a / ", "a / b", "a //b", "a / /b", "a /b /", "a\t/b\tc  d",
+                "/a", " /a b", "a/b c/d", "a b /c d /e", "a \u00A0/b", "a \u0001/b",
+                "a /b\u0001", "\u0001a", "a /\u0001", "a /b  \u000B/c", "a\u2003b /c"
+        };
+        for (String input : inputs) {
+            assertSameParse(input);
+        }
+    }
+
+    @Test
+    public void testMatchesRegexParser() {
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < 200000; n++) {
+            sb.setLength(0);
+            int length = random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                sb.append(fragments[random.nextInt(fragments.length)]);
+            }
+            assertSameParse(sb.toString());
+        }
+    }
+}
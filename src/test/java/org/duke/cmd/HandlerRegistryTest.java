@@ -0,0 +1,56 @@
+package org.duke.cmd;
+
+import org.duke.Duke;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class HandlerRegistryTest {
+    @Test
+    public void matchesAnnotationsTest() {
+        Map<Class<?>, HandlerInfo> all = HandlerRegistry.getAll();
+        assertNotNull(all.get(ListHandler.class));
+        for (Map.Entry<Class<?>, HandlerInfo> entry : all.entrySet()) {
+            HandlerInfo generated = entry.getValue();
+            HandlerInfo read = HandlerInfo.read(entry.getKey());
+            String name = entry.getKey().getSimpleName();
+            assertEquals(read.getBindings(), generated.getBindings(), name);
+            assertEquals(read.getDescription(), generated.getDescription(), name);
+            assertEquals(read.getArgument(), generated.getArgument(), name);
+            assertEquals(read.isArgumentOptional(), generated.isArgumentOptional(), name);
+            List<HandlerInfo.Argument> readArgs = read.getNamedArguments();
+            List<HandlerInfo.Argument> generatedArgs = generated.getNamedArguments();
+            assertEquals(readArgs.size(), generatedArgs.size(), name);
+            for (int i = 0; i < readArgs.size(); i++) {
+                assertEquals(readArgs.get(i).getName(), generatedArgs.get(i).getName(), name);
+                assertEquals(readArgs.get(i).getDescription(), generatedArgs.get(i).getDescription(), name);
+            }
+            assertEquals(read.getDescriptionLine(), generated.getDescriptionLine(), name);
+            assertEquals(read.getSyntaxLine(), generated.getSyntaxLine(), name);
+        }
+    }
+
+    @Test
+    public void handlerInfoTest() {
+        Handler list = new ListHandler();
+        assertSame(HandlerRegistry.get(ListHandler.class), list.getInfo());
+        assertEquals("list", list.getPrimaryBinding());
+        assertEquals("list [ /page (Page to show, from 1) ] [ /size (Tasks per page) ]"
+                        + " [ /after (Index or #id of task to continue after) ] [ /count (Only count the tasks) ]",
+                list.getSyntaxLine());
+
+        //Handlers the registry was not generated with are read from their annotations.
+        Handler anonymous = new Handler() {
+            @Override
+            protected void handleNoExit(Duke duke, Command command) {
+            }
+        };
+        assertEquals(List.of(), anonymous.getInfo().getBindings());
+        assertSame(anonymous.getInfo(), anonymous.getInfo());
+    }
+}
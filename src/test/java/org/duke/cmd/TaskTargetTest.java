@@ -0,0 +1,58 @@
+package org.duke.cmd;
+
+import org.duke.DukeException;
+import org.duke.TaskStorage;
+import org.duke.task.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaskTargetTest {
+    private static TaskStorage sampleStorage() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            tasks.add(new Task("task " + i));
+        }
+        return new TaskStorage(tasks);
+    }
+
+    @Test
+    public void resolveTest() {
+        TaskStorage storage = sampleStorage();
+        assertEquals(0, TaskTarget.resolve(storage, "1"));
+        assertEquals(9, TaskTarget.resolve(storage, " 10 "));
+        assertEquals(4, TaskTarget.resolve(storage, "#5"));
+
+        storage.remove(0);
+        assertEquals(3, TaskTarget.resolve(storage, "#5"), "Ids stay put as earlier tasks are removed");
+        assertThrows(DukeException.class, () -> TaskTarget.resolve(storage, "#1"));
+        assertThrows(DukeException.class, () -> TaskTarget.resolve(storage, "0"));
+        assertThrows(DukeException.class, () -> TaskTarget.resolve(storage, "10"));
+        assertThrows(DukeException.class, () -> TaskTarget.resolve(storage, "one"));
+    }
+
+    @Test
+    public void resolveAllTest() {
+        TaskStorage storage = sampleStorage();
+        assertArrayEquals(new long[] {1, 4, 7}, TaskTarget.resolveAll(storage, "1,4,7"));
+        assertArrayEquals(new long[] {2, 3, 4, 5, 10}, TaskTarget.resolveAll(storage, "10, 2-5, 3"));
+        assertArrayEquals(new long[] {2, 8}, TaskTarget.resolveAll(storage, "#8,#2,2"));
+        assertArrayEquals(new long[] {1, 99}, TaskTarget.resolveAll(storage, "#99,1"),
+                "Ids are left for the change to check");
+
+        storage.remove(0);
+        assertArrayEquals(new long[] {2, 3}, TaskTarget.resolveAll(storage, "1-2"), "Numbers are turned into ids");
+
+        assertThrows(DukeException.class, () -> TaskTarget.resolveAll(storage, "5-2"));
+        assertThrows(DukeException.class, () -> TaskTarget.resolveAll(storage, "1,,2"));
+        assertThrows(DukeException.class, () -> TaskTarget.resolveAll(storage, "9-11"));
+        assertThrows(DukeException.class, () -> TaskTarget.resolveAll(storage, "#x"));
+        assertThrows(DukeException.class, () -> storage.removeByIds(TaskTarget.resolveAll(storage, "1,#99")));
+        assertEquals(9, storage.size(), "A missing id leaves the list untouched");
+        assertThrows(DukeException.class, () -> TaskTarget.resolveAll(storage, ""));
+    }
+}
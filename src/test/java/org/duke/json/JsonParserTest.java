@@ -0,0 +1,133 @@
+package org.duke.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks number decoding, and {@link JsonParser#parseArray(ByteBuffer, ValueHandler, ForkJoinPool)}
+ * against sequential parsing.
+ */
+public class JsonParserTest {
+    private static final String stringChars = "ab,[]{}\":\\ é";
+
+    private static void appendValue(StringBuilder sb, Random random, int depth) {
+        switch (random.nextInt(depth > 3 ? 3 : 5)) {
+        case 0:
+            sb.append(random.nextInt(1000));
+            break;
+        case 1:
+            sb.append('"');
+            for (int i = random.nextInt(12); i > 0; i--) {
+                char c = stringChars.charAt(random.nextInt(stringChars.length()));
+                if (c == '"' || c == '\\') {
+                    sb.append('\\');
+                }
+                sb.append(c);
+            }
+            sb.append('"');
+            break;
+        case 2:
+            sb.append(random.nextBoolean() ? "true" : "null");
+            break;
+        case 3:
+            sb.append('{');
+            for (int i = random.nextInt(4); i > 0; i--) {
+                sb.append("\"k").append(i).append("\": ");
+                appendValue(sb, random, depth + 1);
+                sb.append(i > 1 ? ", " : "");
+            }
+            sb.append('}');
+            break;
+        default:
+            sb.append('[');
+            for (int i = random.nextInt(4); i > 0; i--) {
+                appendValue(sb, random, depth + 1);
+                sb.append(i > 1 ? ",\n" : "");
+            }
+            sb.append(']');
+        }
+    }
+
+    private static final ValueHandler<String> numberKinds = new ValueHandler<>() {
+        public String handleNumber(double val) {
+            return "double " + val;
+        }
+
+        public String handleLong(long val) {
+            return "long " + val;
+        }
+
+        public String handleInt(int val) {
+            return "int " + val;
+        }
+    };
+
+    private static String parseNumber(String json) {
+        String fromChars = JsonParser.parse(new StringReader(json), numberKinds);
+        String fromBytes = JsonParser.parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), numberKinds);
+        assertEquals(fromChars, fromBytes, json);
+        return fromChars;
+    }
+
+    @Test
+    public void numberTest() {
+        assertEquals("int 0", parseNumber("0"));
+        assertEquals("int -2147483648", parseNumber("-2147483648"));
+        assertEquals("long 2147483648", parseNumber("2147483648"));
+        assertEquals("long 9223372036854775807", parseNumber("9223372036854775807"));
+        assertEquals("long -9223372036854775808", parseNumber("-9223372036854775808"));
+        assertEquals("double 9.223372036854776E18", parseNumber("9223372036854775808"));
+        assertEquals("int 0", parseNumber("-0"));
+        assertEquals("double -0.0", parseNumber("-0.0"));
+        assertEquals("double 1.5", parseNumber("1.5"));
+        assertEquals("double -120.0", parseNumber("-1.2E+2"));
+        assertEquals("double 0.012", parseNumber("12e-3"));
+        for (String bad : new String[]{"-", "01", "1.", ".5", "1e", "1e+", "1.5.2", "--1", "1-2"}) {
+            assertThrows(JsonException.class, () -> parseNumber(bad), bad);
+        }
+    }
+
+    private static String parse(ByteBuffer buffer, ForkJoinPool pool) {
+        try {
+            Object value = pool == null
+                    ? JsonParser.parse(buffer.duplicate(), ValueHandler.listOf(ValueHandler.ObjectValue.INSTANCE))
+                    : JsonParser.parseArray(buffer.duplicate(), ValueHandler.ObjectValue.INSTANCE, pool);
+            return String.valueOf(value);
+        } catch (JsonException e) {
+            return "error: " + e.getMessage();
+        }
+    }
+
+    @Test
+    public void parallelParseTest() {
+        Random random = new Random(14);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 6; round++) {
+                StringBuilder sb = new StringBuilder(" [");
+                for (int i = 100000; i > 0; i--) {
+                    appendValue(sb, random, 1);
+                    sb.append(i > 1 ? ",\n\t" : "");
+                }
+                sb.append("] ");
+                byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+                if (round % 2 == 1) {
+                    //Break the input somewhere.
+                    bytes[random.nextInt(bytes.length)] = (byte) ",[]{}\":x".charAt(random.nextInt(8));
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                assertEquals(parse(buffer, null), parse(buffer, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.duke.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void percentileTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        LatencySummary summary = histogram.summarize(3);
+        assertEquals(1000, summary.getCount());
+        assertEquals(3, summary.getErrors());
+        assertEquals(1.0, summary.getMaxMillis());
+        assertTrue(Math.abs(summary.getP50Millis() - 0.5) < 0.5 * 0.04, "Percentiles are within 1/32");
+        assertTrue(Math.abs(summary.getP99Millis() - 0.99) < 0.99 * 0.04, "Percentiles are within 1/32");
+        assertTrue(Math.abs(summary.getMeanMillis() - 0.5005) < 1e-6, "Means are exact");
+    }
+
+    @Test
+    public void smallAndLargeValuesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(7);
+        assertEquals(7e-6, histogram.summarize(0).getP50Millis());
+
+        histogram.reset();
+        assertEquals(0, histogram.summarize(0).getCount());
+        long hour = 3_600_000_000_000L;
+        histogram.record(hour);
+        assertEquals(hour / 1e6, histogram.summarize(0).getP99Millis(), "Values past the last bucket keep their max");
+    }
+}
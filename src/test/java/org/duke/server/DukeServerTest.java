@@ -0,0 +1,77 @@
+package org.duke.server;
+
+import org.duke.TaskStorage;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DukeServerTest {
+    private static final String UNKNOWN_REPLY = "I don't know what that means";
+
+    @Test
+    public void fileCommandsTest() throws Exception {
+        Path target = Files.createTempDirectory("duke-server").resolve("tasks.json");
+        //Nothing is kept from the test, so the store writes nothing out once the server stops.
+        TaskStorage storage = new TaskStorage(new ArrayList<>()) {
+            @Override
+            public void close() {
+            }
+        };
+        DukeServer server = new DukeServer(storage, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        serving.start();
+        try (Socket socket = new Socket(server.getAddress().getAddress(), server.getAddress().getPort())) {
+            socket.setSoTimeout(10000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            readReply(in);
+
+            out.write("todo read book\nexport " + target + "\nimport " + target + "\nhelp\n");
+            out.flush();
+            assertTrue(readReply(in).startsWith("Got it."));
+            assertTrue(readReply(in).contains(UNKNOWN_REPLY), "Sessions cannot export");
+            assertFalse(Files.exists(target));
+            assertTrue(readReply(in).contains(UNKNOWN_REPLY), "Sessions cannot import");
+            String help = readReply(in);
+            assertFalse(help.contains("export") || help.contains("import"), "Help leaves out what cannot be run");
+        } finally {
+            server.close();
+            serving.join();
+            Files.delete(target.getParent());
+        }
+    }
+
+    /**
+     * Reads one reply, up to the empty line ending it.
+     */
+    private static String readReply(BufferedReader in) throws IOException {
+        StringBuilder reply = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            reply.append(line).append('\n');
+        }
+        return reply.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package org.duke.task;
+
+import org.duke.DukeException;
+import org.duke.json.JsonParser;
+import org.duke.json.JsonWriter;
+import org.duke.json.ValueHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaskCodecTest {
+    private static List<Task> sampleTasks() {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task("read book", false));
+        tasks.add(new Task("ünïcödé ✓ \"quoted\" \\ / \n", true));
+        tasks.add(new DeadlineTask("homework", false, LocalDateTime.of(2019, 9, 19, 23, 59)));
+        tasks.add(new DeadlineTask("ancient", true, LocalDateTime.of(1901, 1, 1, 0, 0, 0, 123456789)));
+        tasks.add(new EventTask("birthday", false, LocalDateTime.of(2020, 4, 1, 13, 0)));
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.set(i, tasks.get(i).withId(i * 1000L + 1));
+        }
+        return tasks;
+    }
+
+    private static String toJson(List<Task> tasks) throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonWriter jw = new JsonWriter(out)) {
+            jw.writeValue(tasks);
+        }
+        return out.toString();
+    }
+
+    @Test
+    public void testBinaryRoundTripMatchesJson() throws Exception {
+        List<Task> tasks = sampleTasks();
+        String json = toJson(tasks);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TaskCodec.write(tasks, bytes);
+        List<Task> fromBinary = TaskCodec.read(ByteBuffer.wrap(bytes.toByteArray()));
+        List<Task> fromJson = JsonParser.parse(new StringReader(json),
+                ValueHandler.listOf(new TaskType.Builder()));
+
+        assertEquals(json, toJson(fromBinary));
+        assertEquals(json, toJson(fromJson));
+    }
+
+    @Test
+    public void testEmptyList() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TaskCodec.write(new ArrayList<>(), bytes);
+        assertEquals(0, TaskCodec.read(ByteBuffer.wrap(bytes.toByteArray())).size());
+    }
+
+    @Test
+    public void testCorruptInput() throws Exception {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.write(new byte[]{'D', 'U', 'K', 'E', 2});
+        //A count of 2^32 - 1, which is negative once narrowed to an int.
+        header.write(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+        assertThrows(DukeException.class, () -> TaskCodec.read(ByteBuffer.wrap(header.toByteArray())));
+
+        //Plain tasks with id 1, whose descriptions are said to be -1 and 2^31 - 1 bytes long.
+        assertThrows(DukeException.class, () -> TaskCodec.decode(ByteBuffer.wrap(new byte[]{
+                0, 0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F})));
+        assertThrows(DukeException.class, () -> TaskCodec.decode(ByteBuffer.wrap(new byte[]{
+                0, 0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'a'})));
+
+        //A deadline whose nanoseconds, the last field, are out of range.
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TaskCodec.encode(new DeadlineTask("homework", false, LocalDateTime.of(2019, 9, 19, 23, 59)), bytes);
+        byte[] deadline = bytes.toByteArray();
+        byte[] badNanos = Arrays.copyOf(deadline, deadline.length + 4);
+        //2,000,000,000 as a variable-length integer.
+        byte[] nanos = {(byte) 0x80, (byte) 0xA8, (byte) 0xD6, (byte) 0xB9, 0x07};
+        System.arraycopy(nanos, 0, badNanos, deadline.length - 1, nanos.length);
+        assertThrows(DukeException.class, () -> TaskCodec.decode(ByteBuffer.wrap(badNanos)));
+        assertEquals("homework", TaskCodec.decode(ByteBuffer.wrap(deadline)).getDescription());
+    }
+}
@@ -3,10 +3,13 @@ package org.duke.util;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.Month;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DateParserTest {
     @Test
@@ -15,4 +18,27 @@ public class DateParserTest {
                 LocalDate.of(2019, Month.MAY, 1)
                         .atTime(LocalTime.MIDNIGHT));
     }
+
+    @Test
+    public void relativeDateTimeTest() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime weekday = DateParser.parse("mon 10am");
+        assertTrue(weekday.isAfter(now));
+        assertTrue(weekday.isBefore(now.plusWeeks(1).plusDays(1)));
+        assertEquals(LocalTime.of(10, 0), weekday.toLocalTime());
+
+        LocalDateTime monthDay = DateParser.parse("4 Jul 6pm");
+        assertTrue(monthDay.toLocalDate().isAfter(now.toLocalDate()));
+        assertTrue(monthDay.isBefore(now.plusYears(1).plusDays(1)));
+        //Cached results are the same.
+        assertEquals(monthDay, DateParser.parse("4 Jul 6pm"));
+    }
+
+    @Test
+    public void invalidDateTest() {
+        assertNull(DateParser.parse("2019-02-30"));
+        assertNull(DateParser.parse("30 Feb"));
+        assertEquals(LocalDate.of(2020, Month.FEBRUARY, 29).atTime(LocalTime.MIDNIGHT),
+                DateParser.parse("31 Feb 2020"));
+    }
 }